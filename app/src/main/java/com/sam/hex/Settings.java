@@ -15,7 +15,7 @@ import com.hex.core.Timer;
 public class Settings {
     public static final String TAG = "Hex";
 
-    public static final int MAX_BOARD_SIZE = 30;
+    public static final int MAX_BOARD_SIZE = 101;
     public static final int MIN_BOARD_SIZE = 4;
 
     private static final String NUM_TIMES_OPENED = "num_times_app_opened_review";
@@ -23,6 +23,7 @@ public class Settings {
     public static final String CUSTOM_GAME_SIZE = "customGameSizePref";
     private static final String SWAP = "swapPref";
     private static final String AUTOSAVE = "autosavePref";
+    private static final String HINTS = "hintsPref";
     public static final String TIMER_TYPE = "timerTypePref";
     public static final String TIMER = "timerPref";
     public static final String TIMER_OPTIONS = "timerOptionsPref";
@@ -66,6 +67,10 @@ public class Settings {
                 context.getResources().getBoolean(R.bool.DEFAULT_AUTOSAVE_ENABLED));
     }
 
+    public static boolean getHints(@NonNull Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).getBoolean(HINTS, context.getResources().getBoolean(R.bool.DEFAULT_HINTS_ENABLED));
+    }
+
     public static int getTimerType(Context context) {
         return Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(context).getString(TIMER_TYPE, String.valueOf(Timer.NO_TIMER)));
     }
@@ -4,9 +4,13 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.DialogInterface.OnClickListener;
 import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
 import android.text.InputType;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -20,11 +24,17 @@ import android.widget.Toast;
 import com.google.android.gms.games.Games;
 import com.google.gson.JsonSyntaxException;
 import com.hex.ai.AiTypes;
+import com.hex.ai.Analysis;
+import com.hex.ai.AnalysisService;
+import com.hex.ai.BeeGameAI;
 import com.hex.ai.GameAI;
 import com.hex.core.Game;
 import com.hex.core.Game.GameListener;
 import com.hex.core.Game.GameOptions;
 import com.hex.core.GameAction;
+import com.hex.core.GameEventDispatcher;
+import com.hex.core.GameEventDispatcher.Event;
+import com.hex.core.OpeningBook;
 import com.hex.core.Player;
 import com.hex.core.PlayerObject;
 import com.hex.core.PlayingEntity;
@@ -41,7 +51,9 @@ import com.sam.hex.view.GameOverDialog;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Locale;
 
 import static com.sam.hex.Settings.TAG;
@@ -57,6 +69,7 @@ public class GameFragment extends HexFragment {
     public static final String PLAYER2_TYPE = "player2_type";
     public static final String REPLAY = "replay";
     public static final String NET = "net";
+    private static final int HINTS = 3;
     private static final SimpleDateFormat SAVE_FORMAT = new SimpleDateFormat("yyyy/mm/dd hh:mm", Locale.getDefault());
 
     @Nullable
@@ -78,11 +91,29 @@ public class GameFragment extends HexFragment {
      */
     private boolean gameHasEnded = false;
 
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private BoardView board;
     private Button exit;
     private Button newGame;
     private Button undo;
 
+    /**
+     * Searches the position in the background while a human is to move, if hints are on
+     */
+    @Nullable
+    private AnalysisService analysisService;
+    private final AnalysisService.Listener hintListener = new AnalysisService.Listener() {
+        @Override
+        public void onAnalysis(@NonNull final Analysis analysis) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (board != null) board.setAnalysis(analysis);
+                }
+            });
+        }
+    };
+
     /**
      * Called when the activity is first created.
      */
@@ -162,6 +193,10 @@ public class GameFragment extends HexFragment {
     public void onDestroy() {
         super.onDestroy();
         stopGame(game);
+        if (analysisService != null) {
+            analysisService.shutdown();
+            analysisService = null;
+        }
     }
 
     @Override
@@ -219,6 +254,11 @@ public class GameFragment extends HexFragment {
         undo.setNextFocusRightId(R.id.board);
         board.setNextFocusLeftId(R.id.undo);
 
+        if (Settings.getHints(getMainActivity()) && analysisService == null) {
+            analysisService = new AnalysisService(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), AnalysisService.DEFAULT_PLAYOUTS);
+        }
+        updateHints();
+
         return v;
     }
 
@@ -249,216 +289,150 @@ public class GameFragment extends HexFragment {
         game.gameOptions.timer.start(game);
     }
 
-    @Nullable
+    @NonNull
     private GameListener createGameListener() {
-        return new GameListener() {
+        // Events from the game thread are batched and delivered on the next frame
+        final GameEventDispatcher dispatcher = new GameEventDispatcher(new GameEventDispatcher.Scheduler() {
             @Override
-            public void onWin(@NonNull final PlayingEntity player) {
-                // TODO There seems to be a bug with forfeiting. The person who did not forfeit is
-                // always declared the loser.
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.invalidate();
-
-                            Log.v(TAG, player.getName() + " won!");
-
-                            GameOverDialog dialog = new GameOverDialog(getMainActivity(), GameFragment.this, player);
-                            dialog.show();
-
-                            if (gameHasEnded) return;
-                            else gameHasEnded = true;
-
-                            new Thread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    // Auto save completed game
-                                    if (Settings.getAutosave(getMainActivity())) {
-                                        try {
-                                            String fileName = String.format(getString(R.string.auto_saved_file_name), SAVE_FORMAT.format(new Date()), game.getPlayer1().getName(), game.getPlayer2().getName());
-                                            FileUtil.autoSaveGame(fileName, game.save());
-                                        } catch (IOException e) {
-                                            e.printStackTrace();
-                                        }
-                                    }
-
-                                    Stats.incrementTimePlayed(getMainActivity(), game.getGameLength() - timeGamePaused);
-                                    Stats.incrementGamesPlayed(getMainActivity());
-                                    if (player.getType().equals(Player.Human))
-                                        Stats.incrementGamesWon(getMainActivity());
-
-                                    if (getMainActivity().isSignedIn()) {
-                                        // Net is async and can disconnect at any
-                                        // time
-                                        try {
-                                            // Backup stats
-                                            Stat stat = new Stat();
-                                            stat.setTimePlayed(Stats.getTimePlayed(getMainActivity()));
-                                            stat.setGamesWon(Stats.getGamesWon(getMainActivity()));
-                                            stat.setGamesPlayed(Stats.getGamesPlayed(getMainActivity()));
-                                            stat.setDonationRank(Stats.getDonationRank(getMainActivity()));
-
-                                            // Unlock the quick play achievements!
-                                            if (game.getGameLength() < 30 * 1000) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_30_seconds));
-                                            }
-                                            if (game.getGameLength() < 10 * 1000) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_10_seconds));
-                                            }
-
-                                            // Unlock the fill the board
-                                            // achievement!
-                                            boolean boardFilled = true;
-                                            for (int i = 0; i < game.gameOptions.gridSize; i++) {
-                                                for (int j = 0; j < game.gameOptions.gridSize; j++) {
-                                                    if (game.gamePieces[i][j].getTeam() == 0)
-                                                        boardFilled = false;
-                                                }
-                                            }
-                                            if (boardFilled) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_fill_the_board));
-                                            }
-
-                                            // Unlock the montior smasher
-                                            // achievement!
-                                            if (player.getType().equals(Player.Human) && game.getOtherPlayer(player).getType().equals(Player.AI)) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_monitor_smasher));
-                                            }
-
-                                            // Unlock the speed demon achievement!
-                                            if (game.gameOptions.timer.type != Timer.NO_TIMER) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_speed_demon));
-                                            }
-
-                                            // Unlock the Novice achievement!
-                                            Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_novice), 1);
-
-                                            // Unlock the Intermediate achievement!
-                                            Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_intermediate), 1);
-
-                                            // Unlock the Expert achievement!
-                                            if (player.getType().equals(Player.Human)) {
-                                                Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_expert), 1);
-                                            }
-
-                                            // Unlock the Insane achievement!
-                                            if (player.getType().equals(Player.Human)) {
-                                                Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_insane), 1);
-                                            }
-
-                                            // Unlock the Net achievement
-                                            if (player.getType().equals(Player.Net) || game.getOtherPlayer(player).getType().equals(Player.Net)) {
-                                                Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_net));
-                                            }
-                                        } catch (Exception e) {
-                                            e.printStackTrace();
-                                        }
-                                    }
-                                }
-                            }).start();
-                        }
-                    });
+            public void schedule(@NonNull Runnable flush) {
+                if (board != null) {
+                    ViewCompat.postOnAnimation(board, flush);
+                } else {
+                    mainHandler.post(flush);
+                }
             }
+        });
 
+        dispatcher.subscribe(EnumSet.of(Event.WIN), new GameEventDispatcher.Subscriber() {
             @Override
-            public void onClear() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
-                        }
-                    });
-            }
+            public void onEvents(@NonNull EnumSet<Event> events) {
+                // TODO There seems to be a bug with forfeiting. The person who did not forfeit is
+                // always declared the loser.
+                if (getMainActivity() == null || isDetached()) return;
 
-            @Override
-            public void onStart() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
-                        }
-                    });
-            }
+                final PlayingEntity player = dispatcher.getWinner();
+                board.invalidate();
 
-            @Override
-            public void onStop() {
+                Log.v(TAG, player.getName() + " won!");
 
-            }
+                GameOverDialog dialog = new GameOverDialog(getMainActivity(), GameFragment.this, player);
+                dialog.show();
 
-            @Override
-            public void onTurn(final PlayingEntity player) {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
+                if (gameHasEnded) return;
+                else gameHasEnded = true;
+
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Auto save completed game
+                        if (Settings.getAutosave(getMainActivity())) {
                             try {
-                                if (!game.isGameOver()) {
-                                    board.postInvalidate();
-                                }
-                            } catch (IllegalStateException e) {
+                                String fileName = String.format(getString(R.string.auto_saved_file_name), SAVE_FORMAT.format(new Date()), game.getPlayer1().getName(), game.getPlayer2().getName());
+                                FileUtil.autoSaveGame(fileName, game.save());
+                            } catch (IOException e) {
                                 e.printStackTrace();
                             }
                         }
-                    });
-            }
 
-            @Override
-            public void onReplayStart() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
-                        }
-                    });
-            }
+                        Stats.incrementTimePlayed(getMainActivity(), game.getGameLength() - timeGamePaused);
+                        Stats.incrementGamesPlayed(getMainActivity());
+                        if (player.getType().equals(Player.Human))
+                            Stats.incrementGamesWon(getMainActivity());
 
-            @Override
-            public void onReplayEnd() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
-                        }
-                    });
-            }
+                        if (getMainActivity().isSignedIn()) {
+                            // Net is async and can disconnect at any
+                            // time
+                            try {
+                                // Backup stats
+                                Stat stat = new Stat();
+                                stat.setTimePlayed(Stats.getTimePlayed(getMainActivity()));
+                                stat.setGamesWon(Stats.getGamesWon(getMainActivity()));
+                                stat.setGamesPlayed(Stats.getGamesPlayed(getMainActivity()));
+                                stat.setDonationRank(Stats.getDonationRank(getMainActivity()));
+
+                                // Unlock the quick play achievements!
+                                if (game.getGameLength() < 30 * 1000) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_30_seconds));
+                                }
+                                if (game.getGameLength() < 10 * 1000) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_10_seconds));
+                                }
 
-            @Override
-            public void onUndo() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
-                        }
-                    });
-            }
+                                // Unlock the fill the board
+                                // achievement!
+                                if (game.getBoard().isFull()) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_fill_the_board));
+                                }
 
-            @Override
-            public void startTimer() {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
+                                // Unlock the montior smasher
+                                // achievement!
+                                if (player.getType().equals(Player.Human) && game.getOtherPlayer(player).getType().equals(Player.AI)) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_monitor_smasher));
+                                }
+
+                                // Unlock the speed demon achievement!
+                                if (game.gameOptions.timer.type != Timer.NO_TIMER) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_speed_demon));
+                                }
+
+                                // Unlock the Novice achievement!
+                                Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_novice), 1);
+
+                                // Unlock the Intermediate achievement!
+                                Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_intermediate), 1);
+
+                                // Unlock the Expert achievement!
+                                if (player.getType().equals(Player.Human)) {
+                                    Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_expert), 1);
+                                }
+
+                                // Unlock the Insane achievement!
+                                if (player.getType().equals(Player.Human)) {
+                                    Games.Achievements.increment(getGamesClient(), getString(R.string.achievement_insane), 1);
+                                }
+
+                                // Unlock the Net achievement
+                                if (player.getType().equals(Player.Net) || game.getOtherPlayer(player).getType().equals(Player.Net)) {
+                                    Games.Achievements.unlock(getGamesClient(), getString(R.string.achievement_net));
+                                }
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
                         }
-                    });
+                    }
+                }).start();
             }
+        });
 
-            @Override
-            public void displayTime(final int minutes, final int seconds) {
-                if (getMainActivity() != null && !isDetached())
-                    getMainActivity().runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            board.postInvalidate();
+        // Everything else just needs the board redrawn, once per frame at most
+        dispatcher.subscribe(EnumSet.of(Event.CLEAR, Event.START, Event.TURN, Event.REPLAY_START, Event.REPLAY_END, Event.UNDO, Event.DISPLAY_TIME),
+                new GameEventDispatcher.Subscriber() {
+                    @Override
+                    public void onEvents(@NonNull EnumSet<Event> events) {
+                        if (board != null && getMainActivity() != null && !isDetached()) {
+                            board.invalidate();
+                            if (!Collections.disjoint(events, EnumSet.of(Event.CLEAR, Event.START, Event.TURN, Event.UNDO, Event.REPLAY_START, Event.REPLAY_END))) {
+                                updateHints();
+                            }
                         }
-                    });
-            }
-        };
+                    }
+                });
+
+        return dispatcher;
+    }
+
+    /**
+     * Starts analysing the position if it's a human's turn, or clears the hints if not
+     */
+    private void updateHints() {
+        if (analysisService == null || board == null || game == null) return;
+        boolean net = game.getPlayer1().getType().equals(Player.Net) || game.getPlayer2().getType().equals(Player.Net);
+        if (net || game.replayRunning || game.isGameOver() || !game.getCurrentPlayer().getType().equals(Player.Human)) {
+            analysisService.stop();
+            board.setAnalysis(null);
+        } else {
+            analysisService.analyze(game, HINTS, hintListener);
+        }
     }
 
     @Override
@@ -543,9 +517,15 @@ public class GameFragment extends HexFragment {
         Player p = (team == 1) ? player1Type : player2Type;
         switch (p) {
             case AI:
+                loadOpeningBook(gridSize);
                 int difficulty = Settings.getComputerDifficulty(getMainActivity());
                 if (difficulty == 0) return new GameAI(team);
-                return AiTypes.newAI(AiTypes.BeeAI, team, gridSize, difficulty + 1);
+                if (difficulty == 3) return AiTypes.newAI(AiTypes.MctsAI, team, gridSize, difficulty);
+                BeeGameAI bee = (BeeGameAI) AiTypes.newAI(AiTypes.BeeAI, team, gridSize, difficulty + 1, Runtime.getRuntime().availableProcessors());
+                // Think on the human's time
+                Player opponent = (team == 1) ? player2Type : player1Type;
+                bee.setPonder(opponent == Player.Human);
+                return bee;
             case Human:
                 return new PlayerObject(team);
             case Net:
@@ -555,6 +535,24 @@ public class GameFragment extends HexFragment {
         }
     }
 
+    /**
+     * Maps the opening book for this board size out of the app's assets, if
+     * there is one and it isn't loaded yet
+     */
+    private void loadOpeningBook(int gridSize) {
+        if (OpeningBook.get(gridSize) != null) return;
+        try {
+            AssetFileDescriptor fd = getMainActivity().getAssets().openFd("books/" + gridSize + ".book");
+            try {
+                OpeningBook.register(OpeningBook.open(fd.createInputStream().getChannel(), fd.getStartOffset(), fd.getLength()));
+            } finally {
+                fd.close();
+            }
+        } catch (IOException e) {
+            // No book for this size
+        }
+    }
+
     protected void undo() {
         GameAction.undo(GameAction.LOCAL_GAME, game);
     }
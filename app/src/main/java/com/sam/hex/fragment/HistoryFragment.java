@@ -3,7 +3,6 @@ package com.sam.hex.fragment;
 import android.content.Context;
 import android.os.Bundle;
 import android.os.Environment;
-import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
@@ -17,8 +16,6 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.hex.core.Game;
-import com.hex.core.Game.GameListener;
-import com.hex.core.PlayingEntity;
 import com.sam.hex.FileUtil;
 import com.sam.hex.R;
 
@@ -140,64 +137,11 @@ public class HistoryFragment extends HexFragment {
             // Load up the game so we can get information
             if (i.title == null || i.date == null || i.color == 0) {
                 try {
-                    final Handler h = new Handler();
                     Game g = Game.load(FileUtil.loadGameAsString(path + File.separator + i.file));
-                    g.setGameListener(new GameListener() {
-                        @Override
-                        public void startTimer() {
-                        }
-
-                        @Override
-                        public void onWin(@NonNull PlayingEntity player) {
-                            i.color = player.getTeam();
-                            h.post(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (i.color == 1) {
-                                        v.setBackgroundResource(R.drawable.history_background_red);
-                                    } else if (i.color == 2) {
-                                        v.setBackgroundResource(R.drawable.history_background_blue);
-                                    }
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onUndo() {
-                        }
-
-                        @Override
-                        public void onTurn(PlayingEntity player) {
-                        }
-
-                        @Override
-                        public void onStop() {
-                        }
-
-                        @Override
-                        public void onStart() {
-                        }
-
-                        @Override
-                        public void onReplayStart() {
-                        }
-
-                        @Override
-                        public void onReplayEnd() {
-                        }
-
-                        @Override
-                        public void onClear() {
-                        }
-
-                        @Override
-                        public void displayTime(int minutes, int seconds) {
-                        }
-                    });
-                    g.replay(0);
+                    g.applyMoves(g.getMoveList());
                     i.title = context.getString(R.string.auto_saved_title, g.getPlayer1().getName(), g.getPlayer2().getName());
                     i.date = DATE_FORMAT.format(new Date(g.getGameStart()));
-                    i.color = -1;
+                    i.color = g.getWinner() != null ? g.getWinner().getTeam() : -1;
                 } catch (Exception e) {
                     e.printStackTrace();
                     i.title = "";
@@ -1,20 +1,26 @@
 package com.sam.hex.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.PathShape;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.hex.ai.Analysis;
+import com.hex.core.BitBoard;
+import com.hex.core.BoardTopology;
 import com.hex.core.Game;
 import com.hex.core.GameAction;
 import com.hex.core.Player;
@@ -29,13 +35,25 @@ import java.util.Locale;
  * @author Will Harmon
  **/
 public class BoardView extends View {
-    private ShapeDrawable[][] mDrawable;
-    private ShapeDrawable[][] mDrawableOutline;
-    private ShapeDrawable[][] mCell;
-    private ShapeDrawable[][] mCellShadow;
-    private Button[][] mButtons;
-    @NonNull
-    private Point mFocusedButton = new Point(-1, -1);
+    // One drawable per layer, moved to each cell as it's drawn
+    private ShapeDrawable mDrawable;
+    private ShapeDrawable mDrawableOutline;
+    private ShapeDrawable mCell;
+    private ShapeDrawable mCellShadow;
+    // The focused cell and the cell under the finger, x * gridSize + y, or -1
+    private int mFocusedCell = -1;
+    private int mPressedCell = -1;
+
+    // The cells as last drawn. The grid is drawn once per size, and after
+    // that only the cells whose stones changed are drawn again.
+    @Nullable
+    private Bitmap mBoardBitmap;
+    private Canvas mBoardCanvas;
+    private BitBoard mDrawnBoard;
+    private boolean mDrawnGameOver;
+    // The winning path as drawn, one bit per cell
+    private long[] mDrawnPath;
+    private final Rect mDirty = new Rect();
 
     private ShapeDrawable mPlayer1Background;
     private ShapeDrawable mPlayer2Background;
@@ -51,6 +69,11 @@ public class BoardView extends View {
     private float mPieceLightBorder;
     private float mPieceShadowOffset;
 
+    private double mRadius;
+    private double mHrad;
+    private int mXOffset;
+    private int mYOffset;
+
     private float mTextMargin;
     private String mTitleText;
     private String mActionText;
@@ -58,6 +81,12 @@ public class BoardView extends View {
     private Paint mTextPaint;
     private Paint mLargeTextPaint;
 
+    @Nullable
+    private Analysis mAnalysis;
+    private Paint mHintPaint;
+    private Paint mBarPaint;
+    private float mBarHeight;
+
     public BoardView(Context context) {
         super(context);
         setUp();
@@ -88,16 +117,18 @@ public class BoardView extends View {
         mLargeTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 32, dm));
         mLargeTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
         mTextMargin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 20, dm);
+        mHintPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mHintPaint.setStyle(Paint.Style.STROKE);
+        mHintPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, dm));
+        mBarPaint = new Paint();
+        mBarHeight = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 8, dm);
         setOnClickListener(new OnClickListener() {
             @Override
             public void onClick(View v) {
-                for (int x = 0; x < mGame.gameOptions.gridSize; x++) {
-                    for (int y = 0; y < mGame.gameOptions.gridSize; y++) {
-                        Button b = mButtons[x][y];
-                        if (b.isSelected() || b.isPressed()) {
-                            GameAction.setPiece(new Point(x, y), mGame);
-                        }
-                    }
+                int cell = mPressedCell != -1 ? mPressedCell : mFocusedCell;
+                if (cell != -1) {
+                    BoardTopology topology = mGame.getTopology();
+                    GameAction.setPiece(new Point(topology.getX(cell), topology.getY(cell)), mGame);
                 }
             }
         });
@@ -106,71 +137,47 @@ public class BoardView extends View {
 
     @Override
     public View focusSearch(int direction) {
-        mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(false);
+        if (mGame == null || mFocusedCell == -1) return super.focusSearch(direction);
+        int step;
         switch (direction) {
             case View.FOCUS_RIGHT:
-                if (mFocusedButton.x < mGame.gameOptions.gridSize - 1) {
-                    mFocusedButton = new Point(mFocusedButton.x + 1, mFocusedButton.y);
-                    mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(true);
-                    invalidate();
-                    return this;
-                }
+                step = 0;
+                break;
+            case View.FOCUS_DOWN:
+                step = 1;
                 break;
             case View.FOCUS_LEFT:
-                if (mFocusedButton.x > 0) {
-                    mFocusedButton = new Point(mFocusedButton.x - 1, mFocusedButton.y);
-                    mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(true);
-                    invalidate();
-                    return this;
-                }
+                step = 3;
                 break;
             case View.FOCUS_UP:
-                if (mFocusedButton.y > 0) {
-                    mFocusedButton = new Point(mFocusedButton.x, mFocusedButton.y - 1);
-                    mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(true);
-                    invalidate();
-                    return this;
-                }
-                break;
-            case View.FOCUS_DOWN:
-                if (mFocusedButton.y < mGame.gameOptions.gridSize - 1) {
-                    mFocusedButton = new Point(mFocusedButton.x, mFocusedButton.y + 1);
-                    mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(true);
-                    invalidate();
-                    return this;
-                }
-                break;
-            case View.FOCUS_FORWARD:
+                step = 4;
                 break;
-            case View.FOCUS_BACKWARD:
+            default:
+                step = -1;
                 break;
         }
+        int cell = step == -1 ? -1 : mGame.getTopology().getNeighbour(mFocusedCell, step);
+        invalidateCell(mFocusedCell);
+        mFocusedCell = cell;
+        if (cell != -1) {
+            invalidateCell(cell);
+            return this;
+        }
         return super.focusSearch(direction);
     }
 
     public void setGame(@NonNull Game game) {
         this.mGame = game;
-        mButtons = new Button[game.gameOptions.gridSize][game.gameOptions.gridSize];
-        for (int x = 0; x < game.gameOptions.gridSize; x++) {
-            for (int y = 0; y < game.gameOptions.gridSize; y++) {
-                mButtons[x][y] = new Button();
-            }
-        }
+        mFocusedCell = -1;
+        mPressedCell = -1;
         onSizeChanged(getWidth(), getHeight(), getWidth(), getHeight());
         this.setOnTouchListener(new TouchListener(game));
         setOnFocusChangeListener(new OnFocusChangeListener() {
             @Override
             public void onFocusChange(View v, boolean hasFocus) {
-                if (hasFocus) {
-                    mFocusedButton = new Point(0, 0);
-                    mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(true);
-                    invalidate();
-                } else {
-                    if (!mFocusedButton.equals(new Point(-1, -1))) {
-                        mButtons[mFocusedButton.x][mFocusedButton.y].setSelected(false);
-                        invalidate();
-                    }
-                }
+                invalidateCell(mFocusedCell);
+                mFocusedCell = hasFocus ? 0 : -1;
+                invalidateCell(mFocusedCell);
             }
         });
         invalidate();
@@ -178,8 +185,7 @@ public class BoardView extends View {
 
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
-        if (mGame == null) return;
-        int n = mGame.gameOptions.gridSize;
+        if (mGame == null || mBoardBitmap == null) return;
 
         if (!mGame.replayRunning) {
             PlayingEntity player;
@@ -233,51 +239,167 @@ public class BoardView extends View {
             canvas.drawText(time, posX - mLargeTextPaint.measureText(time), posY + mLargeTextPaint.getTextSize(), mLargeTextPaint);
         }
 
-        for (int x = 0; x < n; x++) {
-            for (int y = 0; y < n; y++) {
-                int c = Color.WHITE;
-                if (mButtons[x][y].isPressed() && mGame.getCurrentPlayer().getType().equals(Player.Human)) {
-                    c = Color.LTGRAY;
-                }
-                if (mGame.gamePieces[x][y].getTeam() == mGame.getPlayer1().getTeam())
-                    c = mGame.getPlayer1().getColor();
-                else if (mGame.gamePieces[x][y].getTeam() == mGame.getPlayer2().getTeam())
-                    c = mGame.getPlayer2().getColor();
-                if (mGame.gamePieces[x][y].isWinningPath()) c = getDarkerColor(c);
-                mCellShadow[x][y].draw(canvas);
-
-                if (mButtons[x][y].isSelected()) {
-                    mCell[x][y].getPaint().setColor(Color.YELLOW);
-                } else {
-                    mCell[x][y].getPaint().setColor(Color.WHITE);
-                }
-                mCell[x][y].draw(canvas);
+        updateBoardBitmap();
+        canvas.drawBitmap(mBoardBitmap, 0, 0, null);
+        // The focused and pressed cells are drawn over the grid
+        if (mFocusedCell != -1) drawCell(canvas, mFocusedCell);
+        if (mPressedCell != -1 && mPressedCell != mFocusedCell) drawCell(canvas, mPressedCell);
 
-                if (c != Color.WHITE) {
-                    mDrawableOutline[x][y].getPaint().setColor(getLighterColor(c));
-                    mDrawableOutline[x][y].draw(canvas);
-                }
-                mDrawable[x][y].getPaint().setColor(c);
-                mDrawable[x][y].draw(canvas);
+        drawAnalysis(canvas);
+    }
+
+    /**
+     * Brings the bitmap up to date with the board, drawing only the cells
+     * whose stones changed, plus the winning path when the game ends or
+     * starts again. Finding them means comparing a few longs per 64 cells.
+     */
+    private void updateBoardBitmap() {
+        BitBoard board = mGame.getBoard();
+        long[] team1 = board.getPlane((byte) 1);
+        long[] team2 = board.getPlane((byte) 2);
+        long[] drawn1 = mDrawnBoard.getPlane((byte) 1);
+        long[] drawn2 = mDrawnBoard.getPlane((byte) 2);
+        boolean changed = false;
+        for (int w = 0; w < team1.length; w++) {
+            long diff = (team1[w] ^ drawn1[w]) | (team2[w] ^ drawn2[w]);
+            changed |= diff != 0;
+            while (diff != 0) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(diff);
+                diff &= diff - 1;
+                mDrawnBoard.setTeam(cell, board.getTeam(cell));
+                drawCell(mBoardCanvas, cell);
             }
         }
+
+        boolean gameOver = mGame.isGameOver();
+        if (!changed && gameOver == mDrawnGameOver) return;
+        mDrawnGameOver = gameOver;
+        int[] oldPath = getPathCells();
+        for (int i = 0; i < mDrawnPath.length; i++) {
+            mDrawnPath[i] = 0;
+        }
+        PlayingEntity winner = gameOver ? mGame.getWinner() : null;
+        if (winner != null) {
+            for (int cell : mGame.getConnectivity().getWinningPath(winner.getTeam())) {
+                mDrawnPath[cell >>> 6] |= 1L << cell;
+            }
+        }
+        for (int cell : oldPath) {
+            drawCell(mBoardCanvas, cell);
+        }
+        for (int cell : getPathCells()) {
+            drawCell(mBoardCanvas, cell);
+        }
+    }
+
+    private int[] getPathCells() {
+        int count = 0;
+        for (long word : mDrawnPath) {
+            count += Long.bitCount(word);
+        }
+        int[] cells = new int[count];
+        int i = 0;
+        for (int w = 0; w < mDrawnPath.length; w++) {
+            for (long word = mDrawnPath[w]; word != 0; word &= word - 1) {
+                cells[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Draws a cell's face and stone, as it is on the board. The shadow is
+     * left alone, since it never changes.
+     */
+    private void drawCell(@NonNull Canvas canvas, int cell) {
+        int n = mGame.gameOptions.gridSize;
+        int x = cell / n;
+        int y = cell % n;
+        int c = Color.WHITE;
+        if (cell == mPressedCell && canvas != mBoardCanvas && mGame.getCurrentPlayer().getType().equals(Player.Human)) {
+            c = Color.LTGRAY;
+        }
+        byte team = mGame.getBoard().getTeam(cell);
+        if (team == mGame.getPlayer1().getTeam())
+            c = mGame.getPlayer1().getColor();
+        else if (team == mGame.getPlayer2().getTeam())
+            c = mGame.getPlayer2().getColor();
+        if (team != 0 && (mDrawnPath[cell >>> 6] & (1L << cell)) != 0) c = getDarkerColor(c);
+
+        if (cell == mFocusedCell && canvas != mBoardCanvas) {
+            mCell.getPaint().setColor(Color.YELLOW);
+        } else {
+            mCell.getPaint().setColor(Color.WHITE);
+        }
+        setCellBounds(mCell, x, y, mPieceMargin, 0);
+        mCell.draw(canvas);
+
+        if (c != Color.WHITE) {
+            mDrawableOutline.getPaint().setColor(getLighterColor(c));
+            setCellBounds(mDrawableOutline, x, y, mPieceWhiteBorder, 0);
+            mDrawableOutline.draw(canvas);
+        }
+        mDrawable.getPaint().setColor(c);
+        setCellBounds(mDrawable, x, y, mPieceLightBorder, 0);
+        mDrawable.draw(canvas);
+    }
+
+    /**
+     * Redraws just the part of the view a cell covers, shadow included
+     */
+    private void invalidateCell(int cell) {
+        if (cell == -1 || mGame == null) return;
+        int n = mGame.gameOptions.gridSize;
+        double x = getCellCenterX(cell / n, cell % n);
+        double y = getCellCenterY(cell % n);
+        mDirty.set((int) (x - mHrad) - 1, (int) (y - mRadius) - 1, (int) (x + mHrad) + 1, (int) (y + mRadius + mPieceShadowOffset) + 1);
+        invalidate(mDirty);
+    }
+
+    /**
+     * Rings the candidate moves, the best most strongly, and shows who's ahead
+     * as a bar in the players' colors along the bottom. Skipped once the
+     * analysis no longer matches the board.
+     */
+    private void drawAnalysis(@NonNull Canvas canvas) {
+        Analysis analysis = mAnalysis;
+        if (analysis == null || mGame.replayRunning || mGame.isGameOver()) return;
+        if (analysis.getPositionHash() != mGame.getPositionHash() || analysis.getTeam() != mGame.getCurrentPlayer().getTeam()) return;
+
+        int color = mGame.getCurrentPlayer().getColor();
+        float best = analysis.getCandidates().isEmpty() ? 1 : (float) analysis.getCandidates().get(0).score;
+        for (Analysis.Candidate candidate : analysis.getCandidates()) {
+            mHintPaint.setColor(getDarkerColor(color));
+            mHintPaint.setAlpha((int) (60 + 160 * candidate.score / best));
+            canvas.drawCircle((float) getCellCenterX(candidate.x, candidate.y), (float) getCellCenterY(candidate.y), (float) (mHrad / 2), mHintPaint);
+        }
+
+        double player1Wins = analysis.getTeam() == 1 ? analysis.getWinProbability() : 1 - analysis.getWinProbability();
+        float left = mTextMargin;
+        float right = getWidth() - mTextMargin;
+        float split = (float) (left + (right - left) * player1Wins);
+        float top = getHeight() - mMargin / 2 - mBarHeight / 2;
+        mBarPaint.setColor(mGame.getPlayer1().getColor());
+        canvas.drawRect(left, top, split, top + mBarHeight, mBarPaint);
+        mBarPaint.setColor(mGame.getPlayer2().getColor());
+        canvas.drawRect(split, top, right, top + mBarHeight, mBarPaint);
     }
 
     @Override
     public void onSizeChanged(int w, int h, int oldw, int oldh) {
         if (mGame == null) return;
         int n = mGame.gameOptions.gridSize;
-        mDrawable = new ShapeDrawable[n][n];
-        mDrawableOutline = new ShapeDrawable[n][n];
-        mCell = new ShapeDrawable[n][n];
-        mCellShadow = new ShapeDrawable[n][n];
         int windowHeight = (int) (h - 2 * mMargin);
         int windowWidth = (w);
 
         double radius = BoardTools.radiusCalculator(windowWidth, windowHeight, mGame.gameOptions.gridSize);
         double hrad = radius * Math.sqrt(3) / 2;
-        int yOffset = (int) ((windowHeight - ((3 * radius / 2) * (mGame.gamePieces[0].length - 1) + 2 * radius)) / 2);
-        int xOffset = (int) ((windowWidth - (hrad * mGame.gamePieces.length * 2 + hrad * (mGame.gamePieces.length - 1))) / 2);
+        int yOffset = (int) ((windowHeight - ((3 * radius / 2) * (n - 1) + 2 * radius)) / 2);
+        int xOffset = (int) ((windowWidth - (hrad * n * 2 + hrad * (n - 1))) / 2);
+        mRadius = radius;
+        mHrad = hrad;
+        mXOffset = xOffset;
+        mYOffset = yOffset;
 
         // Shape of a hexagon
         Path path = new Path();
@@ -289,29 +411,16 @@ public class BoardView extends View {
         path.lineTo((float) -hrad, (float) -radius / 2);
         path.close();
 
-        for (int xc = 0; xc < n; xc++) {
-            for (int yc = 0; yc < n; yc++) {
-                double x = ((hrad + yc * hrad + 2 * hrad * xc) + hrad + xOffset);
-                double y = (1.5 * radius * yc + radius) + yOffset;
-                mDrawable[xc][yc] = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
-                mDrawable[xc][yc].setBounds((int) (x - hrad), (int) (y + mMargin), (int) (x + hrad - mPieceLightBorder),
-                        (int) (y + mMargin + radius * 2 - (mPieceLightBorder * 1.1547)));
-                mDrawableOutline[xc][yc] = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
-                mDrawableOutline[xc][yc].setBounds((int) (x - hrad), (int) (y + mMargin), (int) (x + hrad - mPieceWhiteBorder),
-                        (int) (y + mMargin + radius * 2 - (mPieceWhiteBorder * 1.1547)));
-                mDrawableOutline[xc][yc].getPaint().setAlpha(200);
-                mCell[xc][yc] = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
-                mCell[xc][yc].setBounds((int) (x - hrad), (int) (y + mMargin), (int) (x + hrad - mPieceMargin),
-                        (int) (y + mMargin + radius * 2 - (mPieceMargin * 1.1547)));
-                mCell[xc][yc].getPaint().setColor(Color.WHITE);
-                mCellShadow[xc][yc] = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
-                mCellShadow[xc][yc].setBounds((int) (x - hrad), (int) (y + mMargin + mPieceShadowOffset), (int) (x + hrad - mPieceMargin), (int) (y + mMargin
-                        + radius * 2 - (mPieceMargin * 1.1547)));
-                mCellShadow[xc][yc].getPaint().setColor(Color.BLACK);
-                mCellShadow[xc][yc].getPaint().setAlpha(15);
-                mButtons[xc][yc].hexagon = new Hexagon(x - hrad, y + mMargin, radius);
-            }
-        }
+        // The same four shapes are reused for every cell, so memory doesn't
+        // grow with the board
+        mDrawable = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
+        mDrawableOutline = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
+        mDrawableOutline.getPaint().setAlpha(200);
+        mCell = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
+        mCell.getPaint().setColor(Color.WHITE);
+        mCellShadow = new ShapeDrawable(new PathShape(path, (int) hrad * 2, (int) radius * 2));
+        mCellShadow.getPaint().setColor(Color.BLACK);
+        mCellShadow.getPaint().setAlpha(15);
 
         // Shape of a rectangle
         Path p1Path = new Path();
@@ -345,6 +454,75 @@ public class BoardView extends View {
         mBorderBackground = new ShapeDrawable(new PathShape(borderPath, w, h));
         mBorderBackground.setBounds(0, 0, w, h);
         mBorderBackground.getPaint().setColor(mBackgroundColor);
+
+        // Draw the empty grid once. updateBoardBitmap() adds the stones.
+        if (mBoardBitmap != null) mBoardBitmap.recycle();
+        mBoardBitmap = null;
+        if (w <= 0 || h <= 0) return;
+        mBoardBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        mBoardCanvas = new Canvas(mBoardBitmap);
+        mDrawnBoard = new BitBoard(n);
+        mDrawnGameOver = false;
+        mDrawnPath = new long[(n * n + 63) >>> 6];
+        mCell.getPaint().setColor(Color.WHITE);
+        mDrawable.getPaint().setColor(Color.WHITE);
+        for (int x = 0; x < n; x++) {
+            for (int y = 0; y < n; y++) {
+                setCellBounds(mCellShadow, x, y, mPieceMargin, mPieceShadowOffset);
+                mCellShadow.draw(mBoardCanvas);
+                setCellBounds(mCell, x, y, mPieceMargin, 0);
+                mCell.draw(mBoardCanvas);
+                setCellBounds(mDrawable, x, y, mPieceLightBorder, 0);
+                mDrawable.draw(mBoardCanvas);
+            }
+        }
+    }
+
+    private void setCellBounds(@NonNull ShapeDrawable drawable, int xc, int yc, float inset, float topOffset) {
+        double x = ((mHrad + yc * mHrad + 2 * mHrad * xc) + mHrad + mXOffset);
+        double y = (1.5 * mRadius * yc + mRadius) + mYOffset;
+        drawable.setBounds((int) (x - mHrad), (int) (y + mMargin + topOffset), (int) (x + mHrad - inset),
+                (int) (y + mMargin + mRadius * 2 - (inset * 1.1547)));
+    }
+
+    private double getCellCenterX(int xc, int yc) {
+        return mHrad + yc * mHrad + 2 * mHrad * xc + mXOffset;
+    }
+
+    private double getCellCenterY(int yc) {
+        return 1.5 * mRadius * yc + mRadius + mYOffset + mMargin;
+    }
+
+    /**
+     * Returns the cell under a touch, or null if it's off the board. Only the
+     * few cells nearest the touch are tested, so this doesn't depend on the
+     * board size.
+     */
+    @Nullable
+    private Point findCell(float px, float py) {
+        int n = mGame.gameOptions.gridSize;
+        int row = (int) Math.round((py - mMargin - mYOffset - mRadius) / (1.5 * mRadius));
+
+        // Hexagons tile the plane, so the closest center owns the touch
+        Point closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (int yc = row - 1; yc <= row + 1; yc++) {
+            if (yc < 0 || yc >= n) continue;
+            int xc = (int) Math.round((px - mXOffset - mHrad - yc * mHrad) / (2 * mHrad));
+            xc = Math.max(0, Math.min(n - 1, xc));
+
+            double dx = px - getCellCenterX(xc, yc);
+            double dy = py - getCellCenterY(yc);
+            if (dx * dx + dy * dy < closestDistance) {
+                closestDistance = dx * dx + dy * dy;
+                closest = new Point(xc, yc);
+            }
+        }
+
+        if (closest == null) return null;
+        Hexagon hexagon = new Hexagon(getCellCenterX(closest.x, closest.y), getCellCenterY(closest.y), mRadius);
+        if (!hexagon.contains(new Point((int) px, (int) py))) return null;
+        return closest;
     }
 
     private int getLighterColor(int color) {
@@ -361,6 +539,14 @@ public class BoardView extends View {
         return Color.HSVToColor(hsv);
     }
 
+    /**
+     * Shows hints from an analysis of the current position, or none if null
+     */
+    public void setAnalysis(@Nullable Analysis analysis) {
+        this.mAnalysis = analysis;
+        invalidate();
+    }
+
     public String getTitleText() {
         return mTitleText;
     }
@@ -394,49 +580,30 @@ public class BoardView extends View {
 
         @Override
         public boolean onTouch(View v, @NonNull MotionEvent event) {
-            if (event.getAction() == MotionEvent.ACTION_DOWN) {
-                if (game.getCurrentPlayer().getType().equals(Player.Human)) {
-                    for (int x = 0; x < game.gamePieces.length; x++) {
-                        for (int y = 0; y < game.gamePieces[0].length; y++) {
-                            if (mButtons[x][y].hexagon.contains(new Point((int) event.getX(), (int) event.getY()))) {
-                                mButtons[x][y].setPressed(mButtons[x][y].isEnabled());
-                            } else {
-                                mButtons[x][y].setPressed(false);
-                            }
-                        }
-                    }
-                }
-            } else if (event.getAction() == MotionEvent.ACTION_UP) {
-                for (int x = 0; x < game.gamePieces.length; x++) {
-                    for (int y = 0; y < game.gamePieces[0].length; y++) {
-                        if (mButtons[x][y].isPressed()) {
-                            if (game.gamePieces[x][y].getTeam() == 0 || (game.gameOptions.swap && game.getMoveNumber() == 2)) {
-                                performClick();
-                            }
-                        }
-                        mButtons[x][y].setPressed(false);
-                    }
-                }
-            } else {
-                boolean selectedPiece = false;
-                if (game.getCurrentPlayer().getType().equals(Player.Human)) {
-                    for (int x = 0; x < game.gamePieces.length; x++) {
-                        for (int y = 0; y < game.gamePieces[0].length; y++) {
-                            if (!selectedPiece && mButtons[x][y].hexagon.contains(new Point((int) event.getX(), (int) event.getY()))) {
-                                mButtons[x][y].setPressed(true);
-                                selectedPiece = true;
-                            } else {
-                                mButtons[x][y].setPressed(false);
-                            }
-                        }
-                    }
+            if (event.getAction() == MotionEvent.ACTION_UP) {
+                int cell = mPressedCell;
+                if (cell != -1 && (game.getBoard().getTeam(cell) == 0 || (game.gameOptions.swap && game.getMoveNumber() == 2))) {
+                    performClick();
                 }
+                press(-1);
+            } else if (game.getCurrentPlayer().getType().equals(Player.Human)) {
+                Point cell = findCell(event.getX(), event.getY());
+                press(cell == null ? -1 : game.getBoard().index(cell.x, cell.y));
             }
 
-            invalidate();
-
             return true;
         }
+
+        /**
+         * Moves the press to cell, or lifts it if -1, redrawing only the
+         * cells that change
+         */
+        private void press(int cell) {
+            if (cell == mPressedCell) return;
+            invalidateCell(mPressedCell);
+            mPressedCell = cell;
+            invalidateCell(cell);
+        }
     }
 
     private class Hexagon {
@@ -487,39 +654,4 @@ public class BoardView extends View {
             return res;
         }
     }
-
-    public static class Button {
-        private Hexagon hexagon;
-        private boolean pressed;
-        private boolean enabled = true;
-        private boolean selected;
-
-        public interface OnClickListener {
-            void onClick();
-        }
-
-        protected boolean isPressed() {
-            return pressed;
-        }
-
-        protected void setPressed(boolean pressed) {
-            this.pressed = pressed;
-        }
-
-        protected boolean isSelected() {
-            return selected;
-        }
-
-        protected void setSelected(boolean selected) {
-            this.selected = selected;
-        }
-
-        public boolean isEnabled() {
-            return enabled;
-        }
-
-        public void setEnabled(boolean enabled) {
-            this.enabled = enabled;
-        }
-    }
 }
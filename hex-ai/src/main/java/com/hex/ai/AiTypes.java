@@ -0,0 +1,33 @@
+package com.hex.ai;
+
+import com.hex.core.AI;
+
+public enum AiTypes {
+    GameAI, BeeAI, MctsAI;
+
+    // Milliseconds MctsAI thinks per move, per level of difficulty
+    private static final long MCTS_THINK_TIME = 1000;
+
+    public static AI newAI(AiTypes type, int playerPos, int gridSize, int difficulty) {
+        return newAI(type, playerPos, gridSize, difficulty, 1);
+    }
+
+    /**
+     * @param threads
+     *            How many threads the AI may search with, for AIs that can
+     *            search in parallel
+     * */
+    public static AI newAI(AiTypes type, int playerPos, int gridSize, int difficulty, int threads) {
+        switch(type) {
+        case GameAI:
+            return new GameAI(playerPos);
+        case BeeAI:
+            int depth = difficulty;
+            int beamSize = 7 - difficulty;
+            return new BeeGameAI(playerPos, gridSize, depth, beamSize, threads);
+        case MctsAI:
+            return new MctsAI(playerPos, gridSize, MCTS_THINK_TIME * difficulty, 0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.hex.ai;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What AnalysisService has made of a position so far. Each one is a
+ * snapshot; later ones refine it.
+ **/
+public class Analysis {
+    /**
+     * A move worth considering, for the team to move
+     * */
+    public static class Candidate {
+        public final int x;
+        public final int y;
+        // Share of the search spent on this move. The search spends the most
+        // on the moves it rates best, so this is the move's score.
+        public final double score;
+        public final double winProbability;
+
+        public Candidate(int x, int y, double score, double winProbability) {
+            this.x = x;
+            this.y = y;
+            this.score = score;
+            this.winProbability = winProbability;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d, %d) %.2f %.0f%%", x, y, score, winProbability * 100);
+        }
+    }
+
+    private final long positionHash;
+    private final byte team;
+    private final List<Candidate> candidates;
+    private final long playouts;
+    private final boolean finished;
+
+    public Analysis(long positionHash, byte team, List<Candidate> candidates, long playouts, boolean finished) {
+        this.positionHash = positionHash;
+        this.team = team;
+        this.candidates = Collections.unmodifiableList(candidates);
+        this.playouts = playouts;
+        this.finished = finished;
+    }
+
+    /**
+     * Zobrist hash of the position analysed, as Game.getPositionHash()
+     * */
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * The team to move
+     * */
+    public byte getTeam() {
+        return team;
+    }
+
+    /**
+     * The best moves so far, best first
+     * */
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * The chance the team to move wins, going by its best move. 0.5 if there
+     * are no moves.
+     * */
+    public double getWinProbability() {
+        return candidates.isEmpty() ? 0.5 : candidates.get(0).winProbability;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * True if the search has used its whole budget, so no more refinements
+     * are coming
+     * */
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,244 @@
+package com.hex.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.hex.core.BitBoard;
+import com.hex.core.EmptyCells;
+import com.hex.core.Game;
+
+/**
+ * Analyses positions in the background, for hints and evaluation bars.
+ *
+ * Each position is searched by MCTS, one tree per thread, and the trees' root
+ * results are added up. A candidate's score is its share of the playouts and
+ * its win probability how often those playouts won. The listener hears about
+ * the best candidates every so often as they firm up, and once more when the
+ * budget runs out.
+ *
+ * Asking about a new position cancels the old one, and the old one's listener
+ * won't be called again. Asking about the same position again does nothing.
+ * The listener is called on a background thread.
+ **/
+public class AnalysisService {
+    public static final int DEFAULT_PLAYOUTS = 20000;
+    // Playouts between looks at whether we've been cancelled
+    private static final int CHUNK = 256;
+    private static final long REPORT_INTERVAL = 250;
+
+    /**
+     * Hears about an analysis as it's refined. Should hand the analysis on
+     * rather than call back into the service.
+     * */
+    public interface Listener {
+        public void onAnalysis(Analysis analysis);
+    }
+
+    private final int threads;
+    private final int playouts;
+    private final ExecutorService executor;
+    // Each thread keeps its own AIs, one per team, between analyses
+    private final ThreadLocal<MctsAI[]> ais = new ThreadLocal<MctsAI[]>() {
+        @Override
+        protected MctsAI[] initialValue() {
+            return new MctsAI[3];
+        }
+    };
+    private Job job;
+
+    /**
+     * @param threads
+     *            How many trees to search at once
+     * @param playouts
+     *            Playouts per position, across all threads
+     * */
+    public AnalysisService(int threads, int playouts) {
+        this.threads = Math.max(1, threads);
+        this.playouts = playouts;
+        this.executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Analysis");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts analysing the game's position for the team to move, unless
+     * that's already under way. Stops instead if the game's over.
+     *
+     * @param candidates
+     *            How many of the best moves to report
+     * */
+    public synchronized void analyze(Game game, int candidates, Listener listener) {
+        if(game.isGameOver()) {
+            stop();
+            return;
+        }
+        byte team = game.getCurrentPlayer().getTeam();
+        boolean swap = game.gameOptions.swap && game.getMoveNumber() == 2;
+        boolean swapReply = game.gameOptions.swap && game.getMoveNumber() == 1;
+        long hash = game.getPositionHash();
+        if(job != null && !job.cancelled && job.hash == hash && job.team == team && job.swap == swap && job.swapReply == swapReply
+                && job.listener == listener) return;
+
+        stop();
+        BitBoard position = new BitBoard(game.gameOptions.gridSize);
+        position.copyFrom(game.getBoard());
+        EmptyCells emptyCells = new EmptyCells(game.gameOptions.gridSize);
+        emptyCells.copyFrom(game.getEmptyCells());
+        job = new Job(position, emptyCells, team, swap, swapReply, hash, candidates, listener);
+        for(int i = 0; i < threads; i++) {
+            executor.execute(job);
+        }
+    }
+
+    /**
+     * Cancels the analysis under way, if any
+     * */
+    public synchronized void stop() {
+        if(job != null) job.cancel();
+        job = null;
+    }
+
+    /**
+     * Stops and lets the threads go. The service can't be used after this.
+     * */
+    public synchronized void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    private MctsAI getAI(byte team, int gridSize) {
+        MctsAI[] byTeam = ais.get();
+        if(byTeam[team] == null || byTeam[team].getGridSize() != gridSize) {
+            byTeam[team] = new MctsAI(team, gridSize, 0, 0);
+            byTeam[team].setUseBook(false);
+            byTeam[team].setSolverThreshold(0);
+        }
+        return byTeam[team];
+    }
+
+    /**
+     * One position's analysis. Run once per thread.
+     * */
+    private class Job implements Runnable {
+        final BitBoard position;
+        final EmptyCells emptyCells;
+        final byte team;
+        final boolean swap;
+        final boolean swapReply;
+        final long hash;
+        final int candidates;
+        final Listener listener;
+        // Each worker's latest root results
+        final int[][] visits;
+        final float[][] wins;
+        final int[] workerPlayouts;
+        int workers;
+        int running;
+        long lastReport;
+        volatile boolean cancelled;
+
+        Job(BitBoard position, EmptyCells emptyCells, byte team, boolean swap, boolean swapReply, long hash, int candidates, Listener listener) {
+            this.position = position;
+            this.emptyCells = emptyCells;
+            this.team = team;
+            this.swap = swap;
+            this.swapReply = swapReply;
+            this.hash = hash;
+            this.candidates = candidates;
+            this.listener = listener;
+            int cells = position.getGridSize() * position.getGridSize();
+            this.visits = new int[threads][cells];
+            this.wins = new float[threads][cells];
+            this.workerPlayouts = new int[threads];
+        }
+
+        @Override
+        public void run() {
+            int worker;
+            synchronized(this) {
+                if(cancelled) return;
+                worker = workers++;
+                running++;
+            }
+
+            MctsAI ai = getAI(team, position.getGridSize());
+            int budget = (playouts + threads - 1) / threads;
+            if(ai.startAnalysis(position, emptyCells, swap, swapReply)) {
+                int done = 0;
+                while(done < budget && !cancelled) {
+                    int chunk = Math.min(CHUNK, budget - done);
+                    ai.think(chunk);
+                    done += chunk;
+                    publish(worker, ai, false);
+                }
+            }
+            publish(worker, ai, true);
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Takes a worker's results and tells the listener, if it's time
+         * */
+        synchronized void publish(int worker, MctsAI ai, boolean finished) {
+            if(cancelled) return;
+            int[] workerVisits = visits[worker];
+            float[] workerWins = wins[worker];
+            for(int cell = 0; cell < workerVisits.length; cell++) {
+                workerVisits[cell] = 0;
+                workerWins[cell] = 0;
+            }
+            workerPlayouts[worker] = ai.getRootResults(workerVisits, workerWins);
+            if(finished) running--;
+
+            // The last worker to finish reports the final result
+            boolean last = finished && running == 0 && workers == threads;
+            long now = System.currentTimeMillis();
+            if(!last && now - lastReport < REPORT_INTERVAL) return;
+            lastReport = now;
+            listener.onAnalysis(summarize(last));
+        }
+
+        private Analysis summarize(boolean finished) {
+            int gridSize = position.getGridSize();
+            int cells = gridSize * gridSize;
+            long total = 0;
+            for(int worker = 0; worker < threads; worker++) {
+                total += workerPlayouts[worker];
+            }
+
+            List<Analysis.Candidate> moves = new ArrayList<Analysis.Candidate>();
+            for(int cell = 0; cell < cells; cell++) {
+                int cellVisits = 0;
+                float cellWins = 0;
+                for(int worker = 0; worker < threads; worker++) {
+                    cellVisits += visits[worker][cell];
+                    cellWins += wins[worker][cell];
+                }
+                if(cellVisits == 0) continue;
+                moves.add(new Analysis.Candidate(cell / gridSize, cell % gridSize, (double) cellVisits / total, cellWins / cellVisits));
+            }
+            Collections.sort(moves, new Comparator<Analysis.Candidate>() {
+                @Override
+                public int compare(Analysis.Candidate a, Analysis.Candidate b) {
+                    return Double.compare(b.score, a.score);
+                }
+            });
+            if(moves.size() > candidates) moves = new ArrayList<Analysis.Candidate>(moves.subList(0, candidates));
+            return new Analysis(hash, team, moves, total, finished);
+        }
+    }
+}
@@ -0,0 +1,1108 @@
+package com.hex.ai;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hex.core.AI;
+import com.hex.core.BitBoard;
+import com.hex.core.Game;
+import com.hex.core.Point;
+import com.hex.core.Zobrist;
+
+/**
+ * Beam search with a two-distance evaluation, or optionally a resistance
+ * network one.
+ *
+ * Virtual connections settle positions before the evaluation has to: a team
+ * that's virtually connected has won, and a team one move from it can only
+ * be stopped in the cells its semi-connections share, so only those are
+ * searched.
+ *
+ * The board is kept padded by one cell on each side, with the padding filled
+ * in as each team's edge. It's a quarter turn from Game's board: red (team 1)
+ * joins column 0 to the last column, blue (team 2) joins row 0 to the last
+ * row.
+ **/
+public class BeeGameAI extends AI {
+    private static final long serialVersionUID = 1L;
+    private static final int RED = 1;
+    private static final int BLUE = 2;
+    private static final int UNREACHABLE = 100000;
+    private static final long DEFAULT_TABLE_BYTES = 4 << 20;
+    // Mixed into table keys so positions, the side to move, searches with
+    // and without connections and evaluations each get their own entries
+    private static final long BLUE_TO_MOVE = 0x2545F4914F6CDD1DL;
+    private static final long NO_CONNECTIONS = 0x3C6EF372FE94F82BL;
+    private static final long EVALUATION = 0x6A09E667F3BCC909L;
+    // Resistance values are this many times the log of the conductance ratio
+    private static final int RESISTANCE_SCALE = 1000;
+    private static final double NO_CONDUCTANCE = 1e-9;
+    private static final int WIN = 100 * UNREACHABLE;
+
+    /**
+     * How Bee scores the positions at the end of its search
+     * */
+    public enum Evaluator {
+        /** Compares how many moves each team is from connecting **/
+        TWO_DISTANCE,
+        /** Compares each team's board as an electrical circuit **/
+        RESISTANCE
+    }
+
+    // Every change to pieces, turn by turn. Used when Undo is called.
+    private Journal history = new Journal();
+    private final int gridSize;
+    private final int maxDepth;
+    private final int beamSize;
+    private final int threads;
+    private final long tableBytes;
+    private Evaluator evaluator = Evaluator.TWO_DISTANCE;
+    private transient int[][] pieces;
+    private transient TranspositionTable table;
+    private transient long[] keys;
+    private transient ExecutorService executor;
+    private transient long lastNodes;
+    // Held for the whole of a turn, so undo and new game can wait for a
+    // cancelled one to stop
+    private final transient ReentrantLock turnLock = new ReentrantLock();
+    private boolean ponder;
+    // Our reply to each opponent move pondered so far, by the opponent's cell
+    private transient volatile Map<Integer, Point> ponderMoves;
+    private transient volatile boolean stopPondering;
+    private transient ExecutorService ponderer;
+    private transient Future<?> ponderTask;
+    private transient int ponderHits;
+    // Both teams' connections on the last board read
+    private transient VirtualConnections[] connections;
+
+    public BeeGameAI(int team, int gridSize, int depth, int beamSize) {
+        this(team, gridSize, depth, beamSize, 1);
+    }
+
+    /**
+     * @param threads
+     *            How many threads to search with. The move played is the same
+     *            for any number of threads.
+     * */
+    public BeeGameAI(int team, int gridSize, int depth, int beamSize, int threads) {
+        this(team, gridSize, depth, beamSize, threads, DEFAULT_TABLE_BYTES);
+    }
+
+    /**
+     * @param tableBytes
+     *            Memory for the transposition table
+     * */
+    public BeeGameAI(int team, int gridSize, int depth, int beamSize, int threads, long tableBytes) {
+        super(team);
+        this.maxDepth = depth;
+        this.beamSize = beamSize;
+        this.gridSize = gridSize;
+        this.threads = Math.max(1, threads);
+        this.tableBytes = tableBytes;
+        resetBoard();
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        // Cached evaluations came from the old evaluator
+        if(table != null) table.clear();
+    }
+
+    public boolean getPonder() {
+        return ponder;
+    }
+
+    /**
+     * Pondering keeps searching in the background once our move is made,
+     * working out replies to the opponent's most likely moves. If the
+     * opponent plays one of them the reply is played straight away. Only
+     * worth it against a player who takes a while to move, since it competes
+     * for the CPU.
+     * */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+        if(!ponder) stopPondering();
+    }
+
+    /**
+     * Returns how many moves were played straight from pondering
+     * */
+    public int getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Waits for pondering to get through all the replies it's going to
+     * search. Returns straight away if we're not pondering.
+     * */
+    public void waitForPondering() throws InterruptedException {
+        Future<?> task = ponderTask;
+        if(task == null) return;
+        try {
+            task.get();
+        }
+        catch(ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns how many nodes the last move's search visited
+     * */
+    @Override
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    private void resetBoard() {
+        pieces = new int[gridSize + 2][gridSize + 2];
+        for(int i = 1; i < pieces.length - 1; i++) {
+            pieces[i][0] = RED;
+            pieces[0][i] = BLUE;
+            pieces[i][pieces.length - 1] = RED;
+            pieces[pieces.length - 1][i] = BLUE;
+        }
+        if(table != null) table.clear();
+    }
+
+    /**
+     * The table is keyed by position, so it stays valid through undo and is
+     * shared by every move of the game
+     * */
+    private TranspositionTable getTable() {
+        if(table == null) table = new TranspositionTable(tableBytes);
+        return table;
+    }
+
+    /**
+     * Zobrist keys, laid out by this board's row and column. A position hashes
+     * to the same value as on Game's board.
+     * */
+    private long[] getKeys() {
+        if(keys == null) {
+            long[] gameKeys = Zobrist.getKeys(gridSize);
+            keys = new long[pieces.length * pieces.length * 2];
+            for(int row = 1; row < pieces.length - 1; row++) {
+                for(int column = 1; column < pieces.length - 1; column++) {
+                    int cell = row * pieces.length + column;
+                    int gameCell = (column - 1) * gridSize + gridSize - row;
+                    keys[2 * cell] = gameKeys[2 * gameCell];
+                    keys[2 * cell + 1] = gameKeys[2 * gameCell + 1];
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public void getPlayerTurn(Game game) {
+        super.getPlayerTurn(game);
+        turnLock.lock();
+        try {
+            takeTurn(game);
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+
+    private void takeTurn(Game game) {
+        stopPondering();
+        Map<Integer, Point> pondered = ponderMoves;
+        ponderMoves = null;
+        lastNodes = 0;
+        history.mark();
+
+        // Read the position off the game, so book moves and swaps are
+        // accounted for whoever made them
+        readBoard(game);
+        if(playBookMove(game) || playSolvedMove(game)) return;
+
+        Point lastMove;
+        int moveNumber = game.getMoveNumber();
+        try {
+            lastMove = moveNumber > 1 ? new Point(gridSize - 1 - game.getMoveList().getMove().getY(), game.getMoveList().getMove().getX()) : null;
+        }
+        catch(Exception e) {
+            lastMove = null;
+        }
+
+        if(lastMove == null) {
+            makeMove(new Point(pieces.length / 2 - 1, pieces.length / 2 - 1), game);
+        }
+        else {
+            long budget = TimeBudget.forMove(game, this, countEmpty());
+            updateConnections(game.getBoard());
+            Point bestMove = null;
+            // Pondering searches to maxDepth, which is only what we'd do
+            // now on an untimed game
+            if(pondered != null && budget == TimeBudget.UNLIMITED) {
+                bestMove = pondered.get((lastMove.x + 1) * pieces.length + lastMove.y + 1);
+                if(bestMove != null) ponderHits++;
+            }
+            if(bestMove == null) bestMove = getBestMove(budget);
+            if(bestMove == null) return;
+            setPiece(bestMove.x, bestMove.y, team);
+            int x = bestMove.x - 1;
+            int y = bestMove.y - 1;
+            if(makeMove(new Point(y, gridSize - 1 - x), game) && ponder) startPondering();
+        }
+    }
+
+    /**
+     * Searches our replies to the opponent's likeliest moves, most likely
+     * first, on a copy of the board
+     * */
+    private void startPondering() {
+        final int[][] board = new int[pieces.length][];
+        for(int i = 0; i < pieces.length; i++) {
+            board[i] = pieces[i].clone();
+        }
+        final Map<Integer, Point> replies = new ConcurrentHashMap<Integer, Point>();
+        final int opponent = team == RED ? BLUE : RED;
+        final TranspositionTable table = getTable();
+        final long[] keys = getKeys();
+        stopPondering = false;
+        ponderMoves = replies;
+        ponderTask = getPonderer().submit(new Runnable() {
+            @Override
+            public void run() {
+                List<Move> likely = new Search(board, table, keys, 0, Long.MAX_VALUE, true, false).getMoves();
+                // Cut the candidates down just as the turn itself will
+                BitBoard position = toBitBoard(board);
+                VirtualConnections[] after = new VirtualConnections[] { new VirtualConnections(gridSize, (byte) RED),
+                        new VirtualConnections(gridSize, (byte) BLUE) };
+                for(int i = 0; i < beamSize && i < likely.size() && !stopPondering; i++) {
+                    Move move = likely.get(i);
+                    board[move.row][move.column] = opponent;
+                    ArrayList<Point> candidates = new ArrayList<Point>();
+                    for(int row = 1; row < board.length - 1; row++) {
+                        for(int column = 1; column < board.length - 1; column++) {
+                            if(board[row][column] == 0) candidates.add(new Point(row, column));
+                        }
+                    }
+                    position.setTeam(cell(move.row, move.column), (byte) opponent);
+                    for(VirtualConnections connection : after) {
+                        connection.compute(position);
+                    }
+                    boolean hopeful = restrict(candidates, after);
+                    Point reply = candidates.isEmpty() ? null : getBestMove(board, candidates, maxDepth, Long.MAX_VALUE, true, hopeful);
+                    board[move.row][move.column] = 0;
+                    position.setTeam(cell(move.row, move.column), (byte) 0);
+                    if(reply != null) replies.put(move.row * board.length + move.column, reply);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels pondering and waits for it to finish. The search checks for
+     * this at every node, so it's quick.
+     * */
+    private void stopPondering() {
+        stopPondering = true;
+        Future<?> task = ponderTask;
+        ponderTask = null;
+        if(task == null) return;
+        try {
+            task.get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized ExecutorService getPonderer() {
+        if(ponderer == null) {
+            ponderer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Bee ponder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return ponderer;
+    }
+
+    @Override
+    public void undoCalled() {
+        super.undoCalled();
+        // The turn stops at its next check. Wait for it before rolling back
+        // the board it's using.
+        turnLock.lock();
+        try {
+            stopPondering();
+            ponderMoves = null;
+            history.undo(getPieces());
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+
+    private void readBoard(Game game) {
+        BitBoard board = game.getBoard();
+        for(int x = 0; x < gridSize; x++) {
+            for(int y = 0; y < gridSize; y++) {
+                setPiece(gridSize - y, x + 1, board.getTeam(x, y));
+            }
+        }
+    }
+
+    private void setPiece(int row, int column, int colour) {
+        history.record(row * pieces.length + column, pieces[row][column], colour);
+        pieces[row][column] = colour;
+    }
+
+    /**
+     * Lets the journal change pieces, a slot per cell
+     * */
+    private Journal.State getPieces() {
+        return new Journal.State() {
+            @Override
+            public void set(int slot, int value) {
+                pieces[slot / pieces.length][slot % pieces.length] = value;
+            }
+        };
+    }
+
+    /**
+     * Finds the connections on board, from scratch like every node of the
+     * search, so the moves searched from here depend only on the position.
+     * */
+    private void updateConnections(BitBoard board) {
+        if(connections == null) {
+            connections = new VirtualConnections[] { new VirtualConnections(gridSize, (byte) RED), new VirtualConnections(gridSize, (byte) BLUE) };
+        }
+        for(VirtualConnections connection : connections) {
+            connection.compute(board);
+        }
+    }
+
+    /**
+     * Cuts the root candidates down using the connections. If we're
+     * connected, only our carrier needs filling in. If the opponent's one move
+     * from it, only the cells that stop it are worth trying. Returns false,
+     * leaving candidates alone, if the game's lost anyway.
+     * */
+    private boolean restrict(List<Point> candidates, VirtualConnections[] connections) {
+        VirtualConnections ours = connections[team == RED ? 0 : 1];
+        VirtualConnections theirs = connections[team == RED ? 1 : 0];
+        long[] cells = ours.getConnectionCarrier();
+        if(cells == null) {
+            // Our own key wins, wherever it is
+            if(ours.isSemiConnected()) return true;
+            if(theirs.isConnected()) return false;
+            cells = new long[(gridSize * gridSize + 63) >>> 6];
+            if(!theirs.getMustPlay(cells)) return true;
+        }
+
+        List<Point> kept = new ArrayList<Point>();
+        for(Point move : candidates) {
+            int cell = cell(move.x, move.y);
+            if((cells[cell >>> 6] & (1L << cell)) != 0) kept.add(move);
+        }
+        if(kept.isEmpty()) return ours.isConnected();
+        candidates.retainAll(kept);
+        return true;
+    }
+
+    /**
+     * The cell's index on Game's board
+     * */
+    private int cell(int row, int column) {
+        return (column - 1) * gridSize + gridSize - row;
+    }
+
+    /**
+     * The board on Game's layout
+     * */
+    private BitBoard toBitBoard(int[][] board) {
+        BitBoard bitBoard = new BitBoard(gridSize);
+        for(int row = 1; row < board.length - 1; row++) {
+            for(int column = 1; column < board.length - 1; column++) {
+                bitBoard.setTeam(cell(row, column), (byte) board[row][column]);
+            }
+        }
+        return bitBoard;
+    }
+
+    private int countEmpty() {
+        int count = 0;
+        for(int i = 1; i < pieces.length - 1; i++) {
+            for(int j = 1; j < pieces.length - 1; j++) {
+                if(pieces[i][j] == 0) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Picks a move within budget milliseconds, or returns null if the move's
+     * cancelled.
+     *
+     * Untimed games search straight to maxDepth. Timed games deepen one ply
+     * at a time until the budget's spent, playing the best move of the last
+     * search that finished. A search that would likely overrun isn't
+     * started, and one that does overrun is abandoned. Each search tries the
+     * last one's best move first, and the table hands on the rest of its
+     * principal variation.
+     * */
+    private Point getBestMove(long budget) {
+        ArrayList<Point> candidates = new ArrayList<Point>();
+        for(int i = 1; i < pieces.length - 1; i++) {
+            for(int j = 1; j < pieces.length - 1; j++) {
+                if(pieces[i][j] == 0) candidates.add(new Point(i, j));
+            }
+        }
+        lastNodes = 0;
+        // When the game's lost, search on without the connections, which
+        // would score every move the same
+        boolean hopeful = restrict(candidates, connections);
+
+        if(budget == TimeBudget.UNLIMITED) {
+            return getBestMove(pieces, candidates, maxDepth, Long.MAX_VALUE, false, hopeful);
+        }
+
+        long start = System.currentTimeMillis();
+        long deadline = start + budget;
+        Point bestMove = null;
+        long lastTime = 0;
+        for(int depth = 1; depth <= candidates.size(); depth++) {
+            long iterationStart = System.currentTimeMillis();
+            Point move = getBestMove(pieces, candidates, depth, deadline, false, hopeful);
+            if(move == null) break;
+            bestMove = move;
+            candidates.remove(move);
+            candidates.add(0, move);
+
+            // Each ply costs about as much again as the last one times the
+            // beam, so don't start one that can't finish
+            long now = System.currentTimeMillis();
+            long time = now - iterationStart;
+            long growth = lastTime > 0 ? Math.max(2, time / lastTime) : beamSize;
+            lastTime = Math.max(1, time);
+            if(now + time * growth > deadline) break;
+        }
+        if(bestMove == null && !getSkipMove()) bestMove = new Search(pieces, getTable(), getKeys(), 0, Long.MAX_VALUE, false, false).getFirstMove(candidates);
+        return bestMove;
+    }
+
+    /**
+     * Tries every candidate on board and returns the one with the best search
+     * value, or null if the search was stopped first. A ponder search runs on
+     * the calling thread alone and answers only to stopPondering.
+     *
+     * With more than one thread, the cells are shared out between workers,
+     * each searching its own copy of the board. Every cell is searched
+     * against the best value finished so far. Cells that can't beat it are
+     * cut short, and cut values are always strictly worse. Ties go to the
+     * first cell in board order, so the move doesn't depend on the thread
+     * count, on which worker finishes first or on the order of candidates.
+     *
+     * @param connect
+     *            Settle positions with virtual connections during the search
+     * */
+    private Point getBestMove(final int[][] board, final List<Point> candidates, final int depth, final long deadline, final boolean ponder,
+            final boolean connect) {
+        final int[] values = new int[candidates.size()];
+        final AtomicInteger bound = new AtomicInteger(team == RED ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicLong nodes = new AtomicLong();
+        final TranspositionTable table = getTable();
+        final long[] keys = getKeys();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                Search search = new Search(board, table, keys, depth, deadline, ponder, connect);
+                int k;
+                while(!search.stopped() && (k = next.getAndIncrement()) < candidates.size()) {
+                    Point move = candidates.get(k);
+                    search.play(move.x, move.y, team);
+                    values[k] = search.expand(1, bound.get(), team == RED ? BLUE : RED);
+                    search.play(move.x, move.y, 0);
+                    raise(bound, values[k]);
+                }
+                nodes.addAndGet(search.nodes);
+            }
+        };
+
+        int workers = ponder ? 1 : Math.min(threads, candidates.size());
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for(int i = 1; i < workers; i++) {
+            futures.add(getExecutor().submit(worker));
+        }
+        worker.run();
+        try {
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        if(ponder) {
+            if(stopPondering) return null;
+        }
+        else {
+            lastNodes += nodes.get();
+            if(getSkipMove() || System.currentTimeMillis() > deadline) return null;
+        }
+
+        int bestValue = team == RED ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        Point bestMove = null;
+        for(int k = 0; k < values.length; k++) {
+            Point move = candidates.get(k);
+            boolean better = team == RED && values[k] > bestValue || team == BLUE && values[k] < bestValue;
+            boolean tied = bestMove != null && values[k] == bestValue && (move.x < bestMove.x || move.x == bestMove.x && move.y < bestMove.y);
+            if(better || tied) {
+                bestValue = values[k];
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Moves the bound to value if it's better for us
+     * */
+    private void raise(AtomicInteger bound, int value) {
+        while(true) {
+            int current = bound.get();
+            if(team == RED && value <= current || team == BLUE && value >= current) return;
+            if(bound.compareAndSet(current, value)) return;
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if(executor == null) {
+            executor = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Bee search");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    private synchronized void shutdownExecutor() {
+        if(executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        if(ponderer != null) {
+            ponderer.shutdown();
+            ponderer = null;
+        }
+    }
+
+    /**
+     * A board to search on. Each search thread has its own, sharing only the
+     * transposition table.
+     * */
+    private class Search {
+        private final int[][] pieces;
+        private final TranspositionTable table;
+        private final long[] keys;
+        private long hash;
+        private final EvaluationGraph graph;
+        private final ResistanceNetwork network;
+        // The same board on Game's layout
+        private final BitBoard board;
+        // Both teams' connections on the current board, red first. Null
+        // if the search doesn't use them.
+        private final VirtualConnections[] connections;
+        // Where the mover has to play at each depth, if restricted
+        private final long[][] mustPlay;
+        private final boolean[] restricted;
+        private final int depthLimit;
+        private final long deadline;
+        private final boolean ponder;
+        // Mixed into table keys, since connections settle some positions
+        // the heuristic alone can't
+        private final long mode;
+        private boolean stopped;
+        private long nodes;
+        // Two-distances to each edge, indexed row * size + column
+        private final int[] redA;
+        private final int[] redB;
+        private final int[] blueA;
+        private final int[] blueB;
+
+        /**
+         * @param depthLimit
+         *            The depth to search to, counting the root move
+         * @param deadline
+         *            When to give up, by System.currentTimeMillis()
+         * @param ponder
+         *            Stop on stopPondering rather than on the move being
+         *            cancelled
+         * @param connect
+         *            Settle positions with virtual connections
+         * */
+        Search(int[][] pieces, TranspositionTable table, long[] keys, int depthLimit, long deadline, boolean ponder, boolean connect) {
+            this.pieces = new int[pieces.length][];
+            for(int i = 0; i < pieces.length; i++) {
+                this.pieces[i] = pieces[i].clone();
+            }
+            this.table = table;
+            this.keys = keys;
+            this.depthLimit = depthLimit;
+            this.deadline = deadline;
+            this.ponder = ponder;
+            this.mode = connect ? 0 : NO_CONNECTIONS;
+            for(int row = 1; row < pieces.length - 1; row++) {
+                for(int column = 1; column < pieces.length - 1; column++) {
+                    hash ^= key(row, column, pieces[row][column]);
+                }
+            }
+            graph = new EvaluationGraph(this.pieces);
+            network = evaluator == Evaluator.RESISTANCE ? new ResistanceNetwork(graph, this.pieces) : null;
+            board = toBitBoard(pieces);
+            connections = connect ? new VirtualConnections[] { new VirtualConnections(gridSize, (byte) RED),
+                    new VirtualConnections(gridSize, (byte) BLUE) } : null;
+            mustPlay = new long[Math.max(1, depthLimit)][(gridSize * gridSize + 63) >>> 6];
+            restricted = new boolean[mustPlay.length];
+            int cells = pieces.length * pieces.length;
+            redA = new int[cells];
+            redB = new int[cells];
+            blueA = new int[cells];
+            blueB = new int[cells];
+        }
+
+        private long key(int row, int column, int colour) {
+            if(colour == 0) return 0;
+            return keys[2 * (row * pieces.length + column) + colour - 1];
+        }
+
+        /**
+         * True once the move's been cancelled or the deadline's passed. Values
+         * returned after that are meaningless.
+         * */
+        boolean stopped() {
+            if(!stopped) {
+                if(ponder) stopped = stopPondering;
+                else stopped = getSkipMove() || deadline != Long.MAX_VALUE && System.currentTimeMillis() > deadline;
+            }
+            return stopped;
+        }
+
+        /**
+         * The most promising of candidates by move ordering alone, or null if
+         * there are none
+         * */
+        Point getFirstMove(List<Point> candidates) {
+            for(Move move : getMoves()) {
+                Point point = new Point(move.row, move.column);
+                if(candidates.contains(point)) return point;
+            }
+            return null;
+        }
+
+        /**
+         * Sets a cell, keeping the hash up to date
+         * */
+        void play(int row, int column, int colour) {
+            hash ^= key(row, column, pieces[row][column]) ^ key(row, column, colour);
+            graph.set(row, column, colour);
+            board.setTeam(cell(row, column), (byte) colour);
+        }
+
+        /**
+         * Searches the beam to depthLimit. Values that can't beat previousBest
+         * are cut short.
+         *
+         * Results are kept in the table. An exact value for the same depth is
+         * reused outright, and a bound is reused when it's enough to cut. The
+         * best move is tried first next time, often cutting before the beam
+         * has to be ranked at all. None of this changes the value of a node
+         * that isn't cut, so the move played is the same as without the
+         * table.
+         * */
+        int expand(int depth, int previousBest, int currentColour) {
+            if(stopped()) return 0;
+            nodes++;
+            if(depth == depthLimit) return evaluate();
+
+            int remaining = depthLimit - depth;
+            long key = (currentColour == BLUE ? hash ^ BLUE_TO_MOVE : hash) ^ mode;
+            int firstMove = TranspositionTable.NO_MOVE;
+            long entry = table.probe(key);
+            if(entry != 0) {
+                if(TranspositionTable.depth(entry) == remaining) {
+                    int value = TranspositionTable.score(entry);
+                    int flag = TranspositionTable.flag(entry);
+                    if(flag == TranspositionTable.EXACT) return value;
+                    if(flag == TranspositionTable.LOWER_BOUND && currentColour == RED && value > previousBest) return value;
+                    if(flag == TranspositionTable.UPPER_BOUND && currentColour == BLUE && value < previousBest) return value;
+                }
+                firstMove = TranspositionTable.move(entry);
+                if(firstMove != TranspositionTable.NO_MOVE && pieces[firstMove / pieces.length][firstMove % pieces.length] != 0) {
+                    firstMove = TranspositionTable.NO_MOVE;
+                }
+            }
+
+            if(connections != null) {
+                int value = connect(depth, remaining, currentColour);
+                if(value != 0) {
+                    if(!stopped()) table.store(key, value, remaining, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+                    return value;
+                }
+            }
+            long[] cells = restricted[depth] ? mustPlay[depth] : null;
+            if(cells != null && firstMove != TranspositionTable.NO_MOVE && !contains(cells, firstMove)) {
+                firstMove = TranspositionTable.NO_MOVE;
+            }
+
+            int bestValue = currentColour == RED ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            int bestMove = TranspositionTable.NO_MOVE;
+            Iterator<Move> iter = null;
+            boolean tryFirst = firstMove != TranspositionTable.NO_MOVE;
+            int ranked = 0;
+            while(true) {
+                int move;
+                if(tryFirst) {
+                    move = firstMove;
+                    tryFirst = false;
+                }
+                else {
+                    if(iter == null) iter = getMoves().iterator();
+                    if(ranked == beamSize || !iter.hasNext()) break;
+                    Move nextMove = iter.next();
+                    move = nextMove.row * pieces.length + nextMove.column;
+                    if(cells != null && !contains(cells, move)) continue;
+                    ranked++;
+                    // Already searched first, but it still takes its place in
+                    // the beam
+                    if(move == firstMove) continue;
+                }
+
+                int row = move / pieces.length;
+                int column = move % pieces.length;
+                play(row, column, currentColour);
+                int value = expand(depth + 1, bestValue, currentColour == RED ? BLUE : RED);
+                play(row, column, 0);
+                if(currentColour == RED && value > bestValue) {
+                    bestValue = value;
+                    bestMove = move;
+                }
+                else if(currentColour == BLUE && value < bestValue) {
+                    bestValue = value;
+                    bestMove = move;
+                }
+                if(currentColour == RED && bestValue > previousBest || currentColour == BLUE && bestValue < previousBest) {
+                    if(!stopped()) {
+                        table.store(key, bestValue, remaining, currentColour == RED ? TranspositionTable.LOWER_BOUND : TranspositionTable.UPPER_BOUND, bestMove);
+                    }
+                    return bestValue;
+                }
+            }
+            if(bestValue == Integer.MAX_VALUE || bestValue == Integer.MIN_VALUE) {
+                bestValue = evaluate();
+            }
+            if(!stopped()) table.store(key, bestValue, remaining, TranspositionTable.EXACT, bestMove);
+            return bestValue;
+        }
+
+        /**
+         * Settles the position with virtual connections. Returns its value if
+         * either team's as good as won, or 0. Otherwise fills in the cells
+         * the mover has to play, if it can't play anywhere.
+         *
+         * The connections are found from scratch at every node. The result
+         * is kept in the table for every line that transposes into this
+         * position, so it mustn't depend on the line that got here.
+         *
+         * Wins found with more depth remaining were found sooner, so they're
+         * worth a little more.
+         * */
+        private int connect(int depth, int remaining, int currentColour) {
+            for(VirtualConnections connection : connections) {
+                connection.compute(board);
+            }
+            VirtualConnections mover = connections[currentColour == RED ? 0 : 1];
+            VirtualConnections other = connections[currentColour == RED ? 1 : 0];
+            int win = currentColour == RED ? WIN + remaining : -WIN - remaining;
+            restricted[depth] = false;
+
+            // The mover wins by playing its key
+            if(mover.isConnected() || mover.isSemiConnected()) return win;
+            if(other.isConnected()) return -win;
+            if(!other.getMustPlay(mustPlay[depth])) return 0;
+            for(long word : mustPlay[depth]) {
+                if(word != 0) {
+                    restricted[depth] = true;
+                    return 0;
+                }
+            }
+            return -win;
+        }
+
+        /**
+         * True if cells has the cell at row * size + column
+         * */
+        private boolean contains(long[] cells, int move) {
+            int cell = cell(move / pieces.length, move % pieces.length);
+            return (cells[cell >>> 6] & (1L << cell)) != 0;
+        }
+
+        /**
+         * Returns every empty cell, most promising first
+         * */
+        private ArrayList<Move> getMoves() {
+            fillTwoDistances();
+
+            int size = pieces.length;
+            ArrayList<Move> moves = new ArrayList<Move>();
+            for(int i = 1; i < size - 1; i++) {
+                for(int j = 1; j < size - 1; j++) {
+                    if(pieces[i][j] == 0) {
+                        int cell = i * size + j;
+                        moves.add(new Move(i, j, redA[cell] + redB[cell] + blueA[cell] + blueB[cell]));
+                    }
+                }
+            }
+            Collections.sort(moves);
+            return moves;
+        }
+
+        /**
+         * Scores the board. Positive favours red, negative favours blue.
+         * */
+        private int evaluate() {
+            long key = hash ^ EVALUATION;
+            long entry = table.probe(key);
+            if(entry != 0) return TranspositionTable.score(entry);
+
+            int value = network != null ? resistance() : twoDistance();
+            table.store(key, value, 0, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+            return value;
+        }
+
+        /**
+         * Compares the number of moves each team needs to connect, then the
+         * number of cells that achieve it
+         * */
+        private int twoDistance() {
+            fillTwoDistances();
+
+            int size = pieces.length;
+            int redPotential = UNREACHABLE;
+            int bluePotential = UNREACHABLE;
+            int redMobility = 0;
+            int blueMobility = 0;
+            for(int i = 1; i < size - 1; i++) {
+                for(int j = 1; j < size - 1; j++) {
+                    if(pieces[i][j] == 0) {
+                        int cell = i * size + j;
+                        int red = redA[cell] + redB[cell];
+                        int blue = blueA[cell] + blueB[cell];
+                        if(red < redPotential) {
+                            redPotential = red;
+                            redMobility = 1;
+                        }
+                        else if(red == redPotential) {
+                            redMobility++;
+                        }
+                        if(blue < bluePotential) {
+                            bluePotential = blue;
+                            blueMobility = 1;
+                        }
+                        else if(blue == bluePotential) {
+                            blueMobility++;
+                        }
+                    }
+                }
+            }
+
+            return 100 * (bluePotential - redPotential) - (blueMobility - redMobility);
+        }
+
+        /**
+         * Compares each team's conductance between its edges
+         * */
+        private int resistance() {
+            double red = network.conductance(RED);
+            double blue = network.conductance(BLUE);
+            // A team with no way through is left with rounding error, not 0
+            if(red == Double.POSITIVE_INFINITY || blue < NO_CONDUCTANCE) return WIN;
+            if(blue == Double.POSITIVE_INFINITY || red < NO_CONDUCTANCE) return -WIN;
+            return (int) Math.round(RESISTANCE_SCALE * Math.log(red / blue));
+        }
+
+        /**
+         * Fills in each empty cell's two-distance to the four edges. A cell's
+         * two-distance is one more than its second closest neighbour's, where
+         * neighbours are the empty cells it touches directly or through a chain
+         * of its own stones.
+         * */
+        private void fillTwoDistances() {
+            int size = pieces.length;
+            Arrays.fill(redA, UNREACHABLE);
+            Arrays.fill(redB, UNREACHABLE);
+            Arrays.fill(blueA, UNREACHABLE);
+            Arrays.fill(blueB, UNREACHABLE);
+            redA[0] = 0;
+            redA[(size - 1) * size] = 0;
+            redB[size - 1] = 0;
+            redB[size * size - 1] = 0;
+            blueA[0] = 0;
+            blueA[size - 1] = 0;
+            blueB[(size - 1) * size] = 0;
+            blueB[size * size - 1] = 0;
+
+            boolean found = true;
+            while(found) {
+                found = false;
+                for(int j = 1; j < size - 1; j++) {
+                    for(int i = 1; i < size - 1; i++) {
+                        found |= fillTwoDistance(redA, i * size + j, RED);
+                    }
+                }
+            }
+            found = true;
+            while(found) {
+                found = false;
+                for(int j = size - 2; j > 0; j--) {
+                    for(int i = 1; i < size - 1; i++) {
+                        found |= fillTwoDistance(redB, i * size + j, RED);
+                    }
+                }
+            }
+            found = true;
+            while(found) {
+                found = false;
+                for(int i = 1; i < size - 1; i++) {
+                    for(int j = 1; j < size - 1; j++) {
+                        found |= fillTwoDistance(blueA, i * size + j, BLUE);
+                    }
+                }
+            }
+            found = true;
+            while(found) {
+                found = false;
+                for(int i = 1; i < size - 1; i++) {
+                    for(int j = size - 2; j > 0; j--) {
+                        found |= fillTwoDistance(blueB, i * size + j, BLUE);
+                    }
+                }
+            }
+        }
+
+        private boolean fillTwoDistance(int[] distance, int cell, int colour) {
+            if(distance[cell] != UNREACHABLE || pieces[cell / pieces.length][cell % pieces.length] != 0) return false;
+
+            int[] neighbours = graph.getNeighbours(colour, cell);
+            int count = graph.getNeighbourCount(colour, cell);
+            int min = UNREACHABLE;
+            int secondMin = UNREACHABLE;
+            for(int n = 0; n < count; n++) {
+                int number = distance[neighbours[n]];
+                if(number < secondMin) {
+                    secondMin = number;
+                    if(number < min) {
+                        secondMin = min;
+                        min = number;
+                    }
+                }
+            }
+            if(secondMin < 100 && distance[cell] != secondMin + 1) {
+                distance[cell] = secondMin + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public Serializable getSaveState() {
+        return history;
+    }
+
+    @Override
+    public void setSaveState(Serializable state) {
+        if(!(state instanceof Journal)) return;
+        resetBoard();
+        history = (Journal) state;
+        history.replay(getPieces());
+        undoCalled();
+    }
+
+    @Override
+    public String getAIType() {
+        return "Bee";
+    }
+
+    @Override
+    public String getName() {
+        return "Bee";
+    }
+
+    @Override
+    public void win() {}
+
+    @Override
+    public void lose(Game game) {}
+
+    @Override
+    public void startGame() {}
+
+    @Override
+    public void newgameCalled() {
+        super.newgameCalled();
+        turnLock.lock();
+        try {
+            stopPondering();
+            ponderMoves = null;
+            resetBoard();
+            history.clear();
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+
+    @Override
+    public void quit() {
+        super.quit();
+        turnLock.lock();
+        try {
+            stopPondering();
+            ponderMoves = null;
+            shutdownExecutor();
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.hex.ai;
+
+import java.util.Arrays;
+
+import com.hex.core.BoardTopology;
+
+/**
+ * The graph BeeGameAI's two-distance evaluation walks, kept up to date as
+ * stones are played and taken back.
+ *
+ * For each team, an empty cell's neighbours are the empty cells it touches
+ * directly or through a chain of that team's stones. They're kept as plain
+ * int lists per cell. Changing a cell only rebuilds the lists of the empty
+ * cells around it and around the chains it touches, instead of the whole
+ * board.
+ *
+ * Cells are indexed row * size + column on the AI's padded board.
+ **/
+class EvaluationGraph {
+    private static final int RED = 1;
+    private static final int BLUE = 2;
+
+    private final int size;
+    private final int[][] pieces;
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+
+    // [colour][cell]
+    private final int[][][] lists = new int[3][][];
+    private final int[][] counts = new int[3][];
+
+    // Scratch space
+    private final int[] visited;
+    private int visitStamp;
+    private final int[] stack;
+    private final int[][] affected = new int[3][];
+    private final int[] affectedCount = new int[3];
+    private final int[][] affectedMark = new int[3][];
+    private int affectedStamp;
+
+    /**
+     * Builds the graph for pieces. Change pieces through set() from then on.
+     * */
+    EvaluationGraph(int[][] pieces) {
+        this.size = pieces.length;
+        this.pieces = pieces;
+
+        int cells = size * size;
+        BoardTopology topology = BoardTopology.get(size);
+        int[] start = topology.getNeighbourStart();
+        int[] topologyNeighbours = topology.getNeighbours();
+        neighbourStart = new int[cells + 1];
+        neighbours = new int[topologyNeighbours.length];
+        int n = 0;
+        for(int cell = 0; cell < cells; cell++) {
+            neighbourStart[cell] = n;
+            int topologyCell = toTopology(topology, cell);
+            for(int i = start[topologyCell]; i < start[topologyCell + 1]; i++) {
+                neighbours[n++] = fromTopology(topology, topologyNeighbours[i]);
+            }
+        }
+        neighbourStart[cells] = n;
+
+        visited = new int[cells];
+        stack = new int[cells];
+        for(int colour = RED; colour <= BLUE; colour++) {
+            lists[colour] = new int[cells][];
+            counts[colour] = new int[cells];
+            affected[colour] = new int[cells];
+            affectedMark[colour] = new int[cells];
+            for(int cell = 0; cell < cells; cell++) {
+                lists[colour][cell] = new int[6];
+                if(piece(cell) == 0) rebuild(colour, cell);
+            }
+        }
+    }
+
+    // The AI's boards are a quarter turn from Game's: (row, column) is
+    // (column, size - 1 - row)
+    private int toTopology(BoardTopology topology, int cell) {
+        return topology.index(cell % size, size - 1 - cell / size);
+    }
+
+    private int fromTopology(BoardTopology topology, int cell) {
+        return (size - 1 - topology.getY(cell)) * size + topology.getX(cell);
+    }
+
+    private int piece(int cell) {
+        return pieces[cell / size][cell % size];
+    }
+
+    /**
+     * The colour's neighbours of an empty cell. Only the first
+     * getNeighbourCount() entries are used.
+     * */
+    int[] getNeighbours(int colour, int cell) {
+        return lists[colour][cell];
+    }
+
+    int getNeighbourCount(int colour, int cell) {
+        return counts[colour][cell];
+    }
+
+    /**
+     * Plays or takes back a stone, updating pieces and the lists it affects
+     * */
+    void set(int row, int column, int colour) {
+        int cell = row * size + column;
+        if(pieces[row][column] == colour) return;
+
+        if(++affectedStamp == 0) {
+            for(int c = RED; c <= BLUE; c++) {
+                Arrays.fill(affectedMark[c], 0);
+            }
+            affectedStamp = 1;
+        }
+        affectedCount[RED] = 0;
+        affectedCount[BLUE] = 0;
+
+        // Anything that could route through the cell, before and after
+        collect(RED, cell);
+        collect(BLUE, cell);
+        pieces[row][column] = colour;
+        collect(RED, cell);
+        collect(BLUE, cell);
+
+        for(int c = RED; c <= BLUE; c++) {
+            for(int i = 0; i < affectedCount[c]; i++) {
+                int target = affected[c][i];
+                if(piece(target) == 0) rebuild(c, target);
+                else counts[c][target] = 0;
+            }
+        }
+    }
+
+    /**
+     * Marks the empty cells whose lists for colour might include the cell, or
+     * reach it through colour's stones
+     * */
+    private void collect(int colour, int cell) {
+        nextVisit();
+        addAffected(colour, cell);
+
+        int top = 0;
+        visited[cell] = visitStamp;
+        if(piece(cell) == colour) {
+            stack[top++] = cell;
+        }
+        else {
+            for(int i = neighbourStart[cell]; i < neighbourStart[cell + 1]; i++) {
+                int next = neighbours[i];
+                if(piece(next) == 0) {
+                    addAffected(colour, next);
+                }
+                else if(piece(next) == colour && visited[next] != visitStamp) {
+                    visited[next] = visitStamp;
+                    stack[top++] = next;
+                }
+            }
+        }
+
+        while(top > 0) {
+            int stone = stack[--top];
+            for(int i = neighbourStart[stone]; i < neighbourStart[stone + 1]; i++) {
+                int next = neighbours[i];
+                if(visited[next] == visitStamp) continue;
+                visited[next] = visitStamp;
+                if(piece(next) == 0) addAffected(colour, next);
+                else if(piece(next) == colour) stack[top++] = next;
+            }
+        }
+    }
+
+    private void addAffected(int colour, int cell) {
+        if(affectedMark[colour][cell] == affectedStamp) return;
+        affectedMark[colour][cell] = affectedStamp;
+        affected[colour][affectedCount[colour]++] = cell;
+    }
+
+    /**
+     * Recomputes an empty cell's list: the empty cells next to it or next to
+     * one of colour's chains that it touches
+     * */
+    private void rebuild(int colour, int cell) {
+        nextVisit();
+        int count = 0;
+        int top = 0;
+        visited[cell] = visitStamp;
+        stack[top++] = cell;
+
+        while(top > 0) {
+            int from = stack[--top];
+            for(int i = neighbourStart[from]; i < neighbourStart[from + 1]; i++) {
+                int next = neighbours[i];
+                if(visited[next] == visitStamp) continue;
+
+                int piece = piece(next);
+                if(piece == 0) {
+                    visited[next] = visitStamp;
+                    if(count == lists[colour][cell].length) {
+                        int[] grown = new int[count * 2];
+                        System.arraycopy(lists[colour][cell], 0, grown, 0, count);
+                        lists[colour][cell] = grown;
+                    }
+                    lists[colour][cell][count++] = next;
+                }
+                else if(piece == colour) {
+                    visited[next] = visitStamp;
+                    stack[top++] = next;
+                }
+            }
+        }
+        counts[colour][cell] = count;
+    }
+
+    private void nextVisit() {
+        if(++visitStamp == 0) {
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+    }
+}
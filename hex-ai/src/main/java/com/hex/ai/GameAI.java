@@ -0,0 +1,421 @@
+package com.hex.ai;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hex.core.AI;
+import com.hex.core.EmptyCells;
+import com.hex.core.Game;
+import com.hex.core.GamePiece;
+import com.hex.core.Point;
+
+public class GameAI extends AI {
+    private static final long serialVersionUID = 1L;
+    // Journal slots. n and m take one per coordinate, pairs one per index.
+    private static final int N = 0;
+    private static final int M = 2;
+    private static final int PAIRS = 4;
+    private static final int NO_PAIR = -1;
+    private GamePiece[][] gameBoard;
+    private int[] n = new int[2];// Leftmost point
+    private int[] m = new int[2];// Rightmost point
+    private int[] pairs = new int[16];// List of pair-pieces, packed by pack()
+    private int pairCount;
+    private Journal history = new Journal();// Every change to n, m and pairs. Used when Undo is called.
+    // Held for the whole of a turn, so undo can wait for a cancelled one
+    private final transient ReentrantLock turnLock = new ReentrantLock();
+    private final Random random;
+    private boolean pause = true;
+    private int rand_a = 0;
+    private int rand_b = 0;
+
+    public GameAI(int team) {
+        this(team, new Random());
+    }
+
+    /**
+     * @param random
+     *            Where every random choice comes from. Seeded, the AI plays
+     *            the same moves in the same position every time.
+     * */
+    public GameAI(int team, Random random) {
+        super(team);
+        this.random = random;
+        while(rand_a == 0 && rand_b == 0) {
+            rand_a = random.nextInt(3) - 1;
+            rand_b = random.nextInt(3) - 1;
+        }
+    }
+
+    public boolean getPause() {
+        return pause;
+    }
+
+    /**
+     * Pausing waits half a second before each move, in case the other player
+     * just won, so someone watching sees the board settle. Turn it off when
+     * no one's watching.
+     * */
+    public void setPause(boolean pause) {
+        this.pause = pause;
+    }
+
+    @Override
+    public void getPlayerTurn(Game game) {
+        super.getPlayerTurn(game);
+        turnLock.lock();
+        try {
+            gameBoard = game.gamePieces;
+            history.mark();
+            int n0 = n[0];
+            int n1 = n[1];
+            int m0 = m[0];
+            int m1 = m[1];
+            makeMove(game);
+            history.record(N, n0, n[0]);
+            history.record(N + 1, n1, n[1]);
+            history.record(M, m0, m[0]);
+            history.record(M + 1, m1, m[1]);
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+
+    @Override
+    public void undoCalled() {
+        super.undoCalled();
+        // Wait for a cancelled turn to stop before rolling it back
+        turnLock.lock();
+        try {
+            history.undo(getState());
+        }
+        finally {
+            turnLock.unlock();
+        }
+    }
+
+    /**
+     * Lets the journal change n, m and pairs
+     * */
+    private Journal.State getState() {
+        return new Journal.State() {
+            @Override
+            public void set(int slot, int value) {
+                if(slot < M) n[slot - N] = value;
+                else if(slot < PAIRS) m[slot - M] = value;
+                else if(value == NO_PAIR) deletePair(slot - PAIRS);
+                else insertPair(slot - PAIRS, value);
+            }
+        };
+    }
+
+    private void addPair(int x1, int y1, int x2, int y2) {
+        int pair = pack(x1, y1, x2, y2);
+        history.record(PAIRS + pairCount, NO_PAIR, pair);
+        insertPair(pairCount, pair);
+    }
+
+    private void removePair(int i) {
+        history.record(PAIRS + i, pairs[i], NO_PAIR);
+        deletePair(i);
+    }
+
+    // The order of pairs decides which broken pair is mended first, so
+    // they're kept in order rather than in a table with a free list
+    private void insertPair(int i, int pair) {
+        if(pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+        System.arraycopy(pairs, i, pairs, i + 1, pairCount - i);
+        pairs[i] = pair;
+        pairCount++;
+    }
+
+    private void deletePair(int i) {
+        pairCount--;
+        System.arraycopy(pairs, i + 1, pairs, i, pairCount - i);
+    }
+
+    /**
+     * Packs a pair into an int. The two cells always touch, so the second is
+     * stored as a step from the first. Coordinates can be one off the board.
+     * */
+    private static int pack(int x1, int y1, int x2, int y2) {
+        return (x1 + 1) << 11 | (y1 + 1) << 4 | (x2 - x1 + 1) * 3 + y2 - y1 + 1;
+    }
+
+    /**
+     * Returns a coordinate of a packed pair
+     *
+     * @param cell
+     *            0 for the first cell, 1 for the second
+     * @param axis
+     *            0 for x, 1 for y
+     * */
+    private static int coordinate(int pair, int cell, int axis) {
+        int step = pair & 0xF;
+        if(axis == 0) return (pair >> 11) - 1 + cell * (step / 3 - 1);
+        return (pair >> 4 & 0x7F) - 1 + cell * (step % 3 - 1);
+    }
+
+    private boolean right() {
+        return m[0] + 2 <= gameBoard.length - 1 && m[1] + 1 <= gameBoard.length - 1 && m[1] - 1 >= 0;
+    }
+
+    private boolean left() {
+        return n[0] - 2 >= 0 && n[1] - 1 >= 0 && n[1] + 1 <= gameBoard.length - 1;
+    }
+
+    private byte team(int x, int y) {
+        return gameBoard[x][y].getTeam();
+    }
+
+    private void makeMove(Game game) {
+        /**
+         * Will's AI
+         * */
+        // Sets up the orientation. x and y are swapped for team 1, so the
+        // same offsets walk towards either team's edges.
+        int x = 0;
+        int y = 0;
+        if(team == 2) {
+            x++;
+        }
+        else if(team == 1) {
+            y++;
+        }
+
+        try {
+            // Give the other player a moment, in case they just won
+            for(int i = 0; pause && i < 10; i++) {
+                Thread.sleep(50);
+                if(game.isGameOver() || getSkipMove()) break;
+            }
+        }
+        catch(InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            // Play in the center if we can
+            int mid = 1;
+            mid *= (gameBoard.length - 1) / 2;
+            if(team(mid, mid) == 0) {
+                n[0] = mid;
+                n[1] = mid;
+                m[0] = mid;
+                m[1] = mid;
+                sendMove(game, mid, mid);
+                return;
+            }
+            // Otherwise, play next to it
+            if(team(mid, mid) != team && team(mid + rand_a, mid + rand_b) == 0) {
+                n[x] = mid + rand_a;
+                n[y] = mid + rand_b;
+                m[x] = mid + rand_a;
+                m[y] = mid + rand_b;
+                sendMove(game, mid + rand_a, mid + rand_b);
+                return;
+            }
+
+            // Add the edges as pairs after we've reached them
+            if(n[0] - 1 == 0) {
+                addPair(n[0] - 1, n[1], n[0] - 1, n[1] + 1);
+                n[0] = n[0] - 1;
+            }
+            if(m[0] + 1 == gameBoard.length - 1) {
+                addPair(m[0] + 1, m[1], m[0] + 1, m[1] - 1);
+                m[0] = m[0] + 1;
+            }
+
+            // Check if a pair's been broken
+            for(int i = 0; i < pairCount; i++) {
+                int pair = pairs[i];
+                int firstX = coordinate(pair, 0, x);
+                int firstY = coordinate(pair, 0, y);
+                int secondX = coordinate(pair, 1, x);
+                int secondY = coordinate(pair, 1, y);
+                if(team(firstX, firstY) == 0 || team(secondX, secondY) == 0) {
+                    if(team(firstX, firstY) != 0) {
+                        sendMove(game, secondX, secondY);
+                        removePair(i);
+                        return;
+                    }
+                    if(team(secondX, secondY) != 0) {
+                        sendMove(game, firstX, firstY);
+                        removePair(i);
+                        return;
+                    }
+                }
+                else {
+                    removePair(i);
+                }
+            }
+
+            // Check if they're trying to block the rightmost point
+            if(right() && team(m[x] + 0 * x + 1 * y, m[y] + 1 * x + 0 * y) != 0) {
+                if(team(m[x] - 1 * x + 1 * y, m[y] - 1 * y + 1 * x) == 0) {
+                    m[0] = m[0] + 1;
+                    m[1] = m[1] - 1;
+                    sendMove(game, m[x], m[y]);
+                    return;
+                }
+                if(team(m[x] + 1 * x + 0 * y, m[y] + 1 * y + 0 * x) == 0) {
+                    m[0] = m[0];
+                    m[1] = m[1] + 1;
+                    sendMove(game, m[x], m[y]);
+                    return;
+                }
+            }
+            if(right()
+                    && (team(m[x] - 1 * x + 1 * y, m[y] - 1 * y + 1 * x) != 0 || team(m[x] + 1 * x + 0 * y, m[y] + 1 * y + 0 * x) != 0)
+                    && team(m[x] + 0 * x + 1 * y, m[y] + 0 * y + 1 * x) == 0) {
+                m[0] = m[0] + 1;
+                m[1] = m[1];
+                sendMove(game, m[x], m[y]);
+                return;
+            }
+
+            // Check if they're trying to block the leftmost point
+            if(left() && team(n[x] + 0 * x - 1 * y, n[y] + 0 * y - 1 * x) != 0) {
+                if(team(n[x] + 1 * x - 1 * y, n[y] + 1 * y - 1 * x) == 0) {
+                    n[0] = n[0] - 1;
+                    n[1] = n[1] + 1;
+                    sendMove(game, n[x], n[y]);
+                    return;
+                }
+                if(team(n[x] - 1 * x + 0 * y, n[y] - 1 * y + 0 * x) == 0) {
+                    n[0] = n[0];
+                    n[1] = n[1] - 1;
+                    sendMove(game, n[x], n[y]);
+                    return;
+                }
+            }
+            if(left()
+                    && (team(n[x] + 1 * x - 1 * y, n[y] + 1 * y - 1 * x) != 0 || team(n[x] - 1 * x + 0 * y, n[y] - 1 * y + 0 * x) != 0)
+                    && team(n[x] + 0 * x - 1 * y, n[y] + 0 * y - 1 * x) == 0) {
+                n[0] = n[0] - 1;
+                n[1] = n[1];
+                sendMove(game, n[x], n[y]);
+                return;
+            }
+
+            // Check if one of the next bridges is already blocked
+            if(left()) {
+                if(team(n[x] - 1 * x - 1 * y, n[y] - 1 * y - 1 * x) != 0 && team(n[x] + 1 * x - 2 * y, n[y] + 1 * y - 2 * x) == 0) {
+                    addPair(n[0] - 1, n[1], n[0] - 1, n[1] + 1);
+                    n[0] = n[0] - 2;
+                    n[1] = n[1] + 1;
+                    sendMove(game, n[x], n[y]);
+                    return;
+                }
+                if(team(n[x] + 1 * x - 2 * y, n[y] + 1 * y - 2 * x) != 0 && team(n[x] - 1 * x - 1 * y, n[y] - 1 * y - 1 * x) == 0) {
+                    addPair(n[0], n[1] - 1, n[0] - 1, n[1]);
+                    n[0] = n[0] - 1;
+                    n[1] = n[1] - 1;
+                    sendMove(game, n[x], n[y]);
+                    return;
+                }
+            }
+            if(right()) {
+                if(team(m[x] - 1 * x + 2 * y, m[y] - 1 * y + 2 * x) != 0 && team(m[x] + 1 * x + 1 * y, m[y] + 1 * y + 1 * x) == 0) {
+                    addPair(m[0] + 1, m[1], m[0], m[1] + 1);
+                    m[0] = m[0] + 1;
+                    m[1] = m[1] + 1;
+                    sendMove(game, m[x], m[y]);
+                    return;
+                }
+                if(team(m[x] + 1 * x + 1 * y, m[y] + 1 * y + 1 * x) != 0 && team(m[x] - 1 * x + 2 * y, m[y] - 1 * y + 2 * x) == 0) {
+                    addPair(m[0] + 1, m[1], m[0] + 1, m[1] - 1);
+                    m[0] = m[0] + 2;
+                    m[1] = m[1] - 1;
+                    sendMove(game, m[x], m[y]);
+                    return;
+                }
+            }
+
+            // Extend one of the ends with a bridge
+            int rand = random.nextInt(2);
+            if(left() && rand == 0 && team(n[x] + 1 * x - 2 * y, n[y] + 1 * y - 2 * x) == 0) {
+                addPair(n[0] - 1, n[1], n[0] - 1, n[1] + 1);
+                n[0] = n[0] - 2;
+                n[1] = n[1] + 1;
+                sendMove(game, n[x], n[y]);
+                return;
+            }
+            if(left() && rand == 1 && team(n[x] - 1 * x - 1 * y, n[y] - 1 * y - 1 * x) == 0) {
+                addPair(n[0], n[1] - 1, n[0] - 1, n[1]);
+                n[0] = n[0] - 1;
+                n[1] = n[1] - 1;
+                sendMove(game, n[x], n[y]);
+                return;
+            }
+            if(right() && rand == 0 && team(m[x] - 1 * x + 2 * y, m[y] - 1 * y + 2 * x) == 0) {
+                addPair(m[0] + 1, m[1], m[0] + 1, m[1] - 1);
+                m[0] = m[0] + 2;
+                m[1] = m[1] - 1;
+                sendMove(game, m[x], m[y]);
+                return;
+            }
+            if(right() && rand == 1 && team(m[x] + 1 * x + 1 * y, m[y] + 1 * y + 1 * x) == 0) {
+                addPair(m[0] + 1, m[1], m[0], m[1] + 1);
+                m[0] = m[0] + 1;
+                m[1] = m[1] + 1;
+                sendMove(game, m[x], m[y]);
+                return;
+            }
+
+            // Both ends are done. Fill in the remaining pairs.
+            if(!left() && !right() && pairCount > 0) {
+                sendMove(game, coordinate(pairs[0], 1, x), coordinate(pairs[0], 1, y));
+                removePair(0);
+                return;
+            }
+        }
+        catch(Exception e) {
+            // Ran off the board. Fall back to a random move.
+        }
+
+        EmptyCells empty = game.getEmptyCells();
+        if(empty.size() == 0) return;
+        int cell = empty.get(random.nextInt(empty.size()));
+        sendMove(game, cell / gameBoard.length, cell % gameBoard.length);
+    }
+
+    private void sendMove(Game game, int x, int y) {
+        makeMove(new Point(x, y), game);
+    }
+
+    @Override
+    public Serializable getSaveState() {
+        return history;
+    }
+
+    @Override
+    public void setSaveState(Serializable state) {
+        if(!(state instanceof Journal)) return;
+        n = new int[2];
+        m = new int[2];
+        pairCount = 0;
+        history = (Journal) state;
+        history.replay(getState());
+        undoCalled();
+    }
+
+    @Override
+    public String getAIType() {
+        return "Will";
+    }
+
+    @Override
+    public String getName() {
+        return "Will";
+    }
+
+    @Override
+    public void win() {}
+
+    @Override
+    public void lose(Game game) {}
+}
@@ -0,0 +1,123 @@
+package com.hex.ai;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A log of an AI's changes to its own state, turn by turn, so undo only has
+ * to put back what the last turn changed rather than keeping a copy of
+ * everything for every turn.
+ *
+ * The state is seen as numbered slots of small values. Each change is packed
+ * into one long: the slot, and the values before and after. It serializes as
+ * just those longs, so a saved game carries a few bytes per move.
+ **/
+public final class Journal implements Serializable {
+    private static final long serialVersionUID = 1L;
+    // Values are stored in 24 bits, slots in 16
+    private static final int VALUE_BITS = 24;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    public static final int MAX_SLOT = (1 << 16) - 1;
+
+    /**
+     * Where a journal's changes are undone or replayed
+     * */
+    public interface State {
+        void set(int slot, int value);
+    }
+
+    private transient long[] changes = new long[16];
+    private transient int size;
+    // Where each turn's changes start
+    private transient int[] turns = new int[8];
+    private transient int turnCount;
+
+    /**
+     * Starts a new turn. Changes recorded from now on are undone together.
+     * */
+    public void mark() {
+        if(turnCount == turns.length) turns = Arrays.copyOf(turns, turnCount * 2);
+        turns[turnCount++] = size;
+    }
+
+    /**
+     * Records that slot changed from before to after. Values must fit in 24
+     * bits, signed.
+     * */
+    public void record(int slot, int before, int after) {
+        if(before == after) return;
+        if(size == changes.length) changes = Arrays.copyOf(changes, size * 2);
+        changes[size++] = (long) slot << (2 * VALUE_BITS) | (before & VALUE_MASK) << VALUE_BITS | after & VALUE_MASK;
+    }
+
+    public int getTurns() {
+        return turnCount;
+    }
+
+    /**
+     * Puts back everything the last turn changed, last change first. Returns
+     * false if there are no turns left.
+     * */
+    public boolean undo(State state) {
+        if(turnCount == 0) return false;
+        int start = turns[--turnCount];
+        while(size > start) {
+            long change = changes[--size];
+            state.set(slot(change), value(change >>> VALUE_BITS));
+        }
+        return true;
+    }
+
+    /**
+     * Makes every change again, in order, to a state that's back where the
+     * journal started
+     * */
+    public void replay(State state) {
+        for(int i = 0; i < size; i++) {
+            state.set(slot(changes[i]), value(changes[i]));
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        turnCount = 0;
+    }
+
+    private static int slot(long change) {
+        return (int) (change >>> (2 * VALUE_BITS));
+    }
+
+    // Sign extends the low 24 bits
+    private static int value(long change) {
+        return (int) (change << (64 - VALUE_BITS) >> (64 - VALUE_BITS));
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for(int i = 0; i < size; i++) {
+            out.writeLong(changes[i]);
+        }
+        out.writeInt(turnCount);
+        for(int i = 0; i < turnCount; i++) {
+            out.writeInt(turns[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        changes = new long[Math.max(16, size)];
+        for(int i = 0; i < size; i++) {
+            changes[i] = in.readLong();
+        }
+        turnCount = in.readInt();
+        turns = new int[Math.max(8, turnCount)];
+        for(int i = 0; i < turnCount; i++) {
+            turns[i] = in.readInt();
+        }
+    }
+}
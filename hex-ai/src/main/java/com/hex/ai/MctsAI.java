@@ -0,0 +1,431 @@
+package com.hex.ai;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import com.hex.core.AI;
+import com.hex.core.BitBoard;
+import com.hex.core.BoardConnectivity;
+import com.hex.core.EmptyCells;
+import com.hex.core.Game;
+import com.hex.core.Point;
+
+/**
+ * Monte Carlo tree search with UCT and RAVE.
+ *
+ * Each playout fills the rest of the board at random. A full Hex board always
+ * has exactly one winner, so scoring a playout is a single connectivity check
+ * instead of a game played out move by move. The filled board also says who
+ * took every cell, which is all RAVE (all moves as first) needs to share a
+ * playout's result with every move it contains. It searches until its time or
+ * playout budget runs out, so it gets stronger with more time rather than a
+ * deeper fixed search.
+ *
+ * The tree is kept in flat arrays, indexed by node, so playouts don't
+ * allocate. Playouts deal from a copy of the game's empty cells rather than
+ * scanning the board for them.
+ **/
+public class MctsAI extends AI {
+    private static final long serialVersionUID = 1L;
+    private static final double EXPLORATION = 0.2;
+    // Visits at which a move's own results count as much as its RAVE results
+    private static final double RAVE_EQUIVALENCE = 1000;
+    private static final int INITIAL_NODES = 4096;
+    private static final int MAX_NODES = 1 << 18;
+    private static final int CHECK_TIME_EVERY = 64;
+
+    private final int gridSize;
+    private final long thinkTime;
+    private final int maxPlayouts;
+    private transient Random random;
+
+    // The tree. A node's children are the nodes firstChild up to firstChild +
+    // childCount. wins counts playouts won by the team that made the node's
+    // move. raveWins and raveVisits count playouts where that team ended up
+    // with the cell, whenever it was played.
+    private transient int[] nodeMove;
+    private transient int[] nodeFirstChild;
+    private transient int[] nodeChildCount;
+    private transient int[] nodeVisits;
+    private transient float[] nodeWins;
+    private transient int[] nodeRaveVisits;
+    private transient float[] nodeRaveWins;
+    private transient int nodeCount;
+
+    // Scratch space for playouts
+    private transient BitBoard root;
+    private transient EmptyCells rootEmpty;
+    private transient BitBoard scratch;
+    private transient BoardConnectivity connectivity;
+    private transient int[] path;
+    private transient int[] empty;
+    // The root is the first move of a swap game, so the opponent's replies
+    // include swapping
+    private transient boolean swapReply;
+
+    private transient int lastPlayouts;
+
+    /**
+     * @param thinkTime
+     *            Milliseconds to search per move
+     * @param maxPlayouts
+     *            Stop early after this many playouts. 0 for no limit.
+     * */
+    public MctsAI(int team, int gridSize, long thinkTime, int maxPlayouts) {
+        super(team);
+        this.gridSize = gridSize;
+        this.thinkTime = thinkTime;
+        this.maxPlayouts = maxPlayouts;
+    }
+
+    /**
+     * Uses a fixed seed, so the same position and playout budget always give
+     * the same move
+     * */
+    public MctsAI(int team, int gridSize, long thinkTime, int maxPlayouts, long seed) {
+        this(team, gridSize, thinkTime, maxPlayouts);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void getPlayerTurn(Game game) {
+        super.getPlayerTurn(game);
+        lastPlayouts = 0;
+        if(playBookMove(game) || playSolvedMove(game)) return;
+
+        int move = getBestMove(game);
+        if(move != -1) makeMove(new Point(move / gridSize, move % gridSize), game);
+    }
+
+    /**
+     * Searches the game's position and returns the cell to play, or -1 if
+     * there's nowhere to play
+     * */
+    public int getBestMove(Game game) {
+        boolean swap = game.gameOptions.swap;
+        if(!startAnalysis(game.getBoard(), game.getEmptyCells(), swap && game.getMoveNumber() == 2, swap && game.getMoveNumber() == 1)) return -1;
+
+        // Think for thinkTime, unless the clock says otherwise
+        long budget = TimeBudget.forMove(game, this, root.getEmptyCount());
+        long end = System.currentTimeMillis() + (budget == TimeBudget.UNLIMITED ? thinkTime : Math.min(thinkTime, budget));
+        int playouts = 0;
+        while(!getSkipMove()) {
+            playout();
+            playouts++;
+            if(maxPlayouts > 0 && playouts >= maxPlayouts) break;
+            if(playouts % CHECK_TIME_EVERY == 0 && System.currentTimeMillis() >= end) break;
+        }
+        lastPlayouts = playouts;
+
+        // The most visited move is the one the search trusts most
+        int best = nodeFirstChild[0];
+        for(int child = best + 1; child < nodeFirstChild[0] + nodeChildCount[0]; child++) {
+            if(nodeVisits[child] > nodeVisits[best]) best = child;
+        }
+        return nodeMove[best];
+    }
+
+    /**
+     * Starts a new search of position, with this AI's team to move, to be
+     * run a little at a time by think(). Returns false if there's nowhere to
+     * play.
+     *
+     * @param emptyCells
+     *            position's empty cells
+     * @param swap
+     *            Whether taking the first stone is allowed
+     * @param swapReply
+     *            Whether the opponent will be allowed to take the stone we
+     *            play, because it's the first move of a swap game
+     * */
+    public boolean startAnalysis(BitBoard position, EmptyCells emptyCells, boolean swap, boolean swapReply) {
+        init();
+        this.swapReply = swapReply;
+        root.copyFrom(position);
+        rootEmpty.copyFrom(emptyCells);
+
+        nodeCount = 1;
+        nodeMove[0] = -1;
+        nodeVisits[0] = 0;
+        nodeWins[0] = 0;
+        nodeChildCount[0] = 0;
+        expand(0, rootEmpty.toArray(empty), root, swap);
+        return nodeChildCount[0] > 0;
+    }
+
+    /**
+     * Runs up to playouts more playouts of the search started by
+     * startAnalysis()
+     * */
+    public void think(int playouts) {
+        for(int i = 0; i < playouts && !getSkipMove(); i++) {
+            playout();
+        }
+    }
+
+    /**
+     * Adds up the search so far by cell: how many playouts tried each move
+     * at the root, and how many of those we won. Returns the playouts in
+     * all.
+     * */
+    public int getRootResults(int[] visits, float[] wins) {
+        int first = nodeFirstChild[0];
+        for(int child = first; child < first + nodeChildCount[0]; child++) {
+            visits[nodeMove[child]] += nodeVisits[child];
+            wins[nodeMove[child]] += nodeWins[child];
+        }
+        return nodeVisits[0];
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Returns how many playouts the last search ran
+     * */
+    public int getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * Each playout adds a node to the tree
+     * */
+    @Override
+    public long getLastNodes() {
+        return lastPlayouts;
+    }
+
+    private void init() {
+        if(random == null) random = new Random();
+        if(nodeMove == null) {
+            nodeMove = new int[INITIAL_NODES];
+            nodeFirstChild = new int[INITIAL_NODES];
+            nodeChildCount = new int[INITIAL_NODES];
+            nodeVisits = new int[INITIAL_NODES];
+            nodeWins = new float[INITIAL_NODES];
+            nodeRaveVisits = new int[INITIAL_NODES];
+            nodeRaveWins = new float[INITIAL_NODES];
+
+            root = new BitBoard(gridSize);
+            rootEmpty = new EmptyCells(gridSize);
+            scratch = new BitBoard(gridSize);
+            connectivity = new BoardConnectivity(scratch);
+            path = new int[gridSize * gridSize + 1];
+            empty = new int[gridSize * gridSize];
+        }
+    }
+
+    /**
+     * Selects down the tree, grows it by one level, plays out the rest of the
+     * game at random and backs up the result
+     * */
+    private void playout() {
+        scratch.copyFrom(root);
+        byte toMove = (byte) team;
+
+        // Selection
+        int node = 0;
+        int depth = 0;
+        while(nodeChildCount[node] > 0) {
+            node = select(node);
+            scratch.setTeam(nodeMove[node], toMove);
+            path[depth++] = node;
+            toMove = opponent(toMove);
+        }
+
+        // Expansion. Our first move in a swap game can be taken over, so
+        // that's one of the replies.
+        if(nodeVisits[node] > 0 && expand(node, collectEmpty(scratch), scratch, swapReply && depth == 1)) {
+            node = select(node);
+            scratch.setTeam(nodeMove[node], toMove);
+            path[depth++] = node;
+            toMove = opponent(toMove);
+        }
+
+        // Simulation. Shuffle the root's empty cells and deal them out in
+        // turn, skipping the ones the tree has already played.
+        int count = rootEmpty.toArray(empty);
+        for(int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = empty[i];
+            empty[i] = empty[j];
+            empty[j] = cell;
+        }
+        for(int i = 0; i < count; i++) {
+            if(scratch.getTeam(empty[i]) != 0) continue;
+            scratch.setTeam(empty[i], toMove);
+            toMove = opponent(toMove);
+        }
+        connectivity.invalidate();
+        byte winner = connectivity.isConnected((byte) 1) ? (byte) 1 : (byte) 2;
+
+        // Backpropagation. Even depths are our moves.
+        nodeVisits[0]++;
+        updateRave(0, (byte) team, winner);
+        for(int i = 0; i < depth; i++) {
+            int n = path[i];
+            nodeVisits[n]++;
+            byte mover = i % 2 == 0 ? (byte) team : opponent((byte) team);
+            if(winner == mover) nodeWins[n]++;
+            updateRave(n, opponent(mover), winner);
+        }
+    }
+
+    /**
+     * Credits every child move whose cell the mover ended up with
+     * */
+    private void updateRave(int node, byte mover, byte winner) {
+        float win = winner == mover ? 1 : 0;
+        int first = nodeFirstChild[node];
+        int last = first + nodeChildCount[node];
+        for(int child = first; child < last; child++) {
+            if(scratch.getTeam(nodeMove[child]) == mover) {
+                nodeRaveVisits[child]++;
+                nodeRaveWins[child] += win;
+            }
+        }
+    }
+
+    private int select(int node) {
+        int first = nodeFirstChild[node];
+        int last = first + nodeChildCount[node];
+        double logVisits = Math.log(Math.max(1, nodeVisits[node]));
+
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int child = first; child < last; child++) {
+            int visits = nodeVisits[child];
+            double value = visits == 0 ? 0 : nodeWins[child] / visits;
+            if(nodeRaveVisits[child] > 0) {
+                // Lean on RAVE while the move has few results of its own
+                double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * visits + RAVE_EQUIVALENCE));
+                value = (1 - beta) * value + beta * nodeRaveWins[child] / nodeRaveVisits[child];
+            }
+            else if(visits == 0) {
+                // Try untested moves before trusting the averages
+                return child;
+            }
+            value += EXPLORATION * Math.sqrt(logVisits / (visits + 1));
+
+            if(value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a child for each of the first count cells of empty, the board's
+     * empty cells, in random order. Returns false if the board's full or the
+     * tree is out of room.
+     * */
+    private boolean expand(int node, int count, BitBoard board, boolean swap) {
+        int children = count;
+        if(swap) children++;
+        if(children == 0 || !ensureCapacity(nodeCount + children)) return false;
+
+        for(int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = empty[i];
+            empty[i] = empty[j];
+            empty[j] = cell;
+        }
+
+        int first = nodeCount;
+        for(int i = 0; i < count; i++) {
+            addChild(node, empty[i]);
+        }
+        if(swap) {
+            // Swapping takes over the first stone, so it's the one occupied
+            // cell we're allowed to play on
+            for(int cell = 0; cell < gridSize * gridSize; cell++) {
+                if(board.getTeam(cell) != 0) addChild(node, cell);
+            }
+        }
+        nodeFirstChild[node] = first;
+        nodeChildCount[node] = nodeCount - first;
+        return true;
+    }
+
+    private void addChild(int parent, int move) {
+        int child = nodeCount++;
+        nodeMove[child] = move;
+        nodeFirstChild[child] = 0;
+        nodeChildCount[child] = 0;
+        nodeVisits[child] = 0;
+        nodeWins[child] = 0;
+        nodeRaveVisits[child] = 0;
+        nodeRaveWins[child] = 0;
+    }
+
+    private boolean ensureCapacity(int size) {
+        if(size <= nodeMove.length) return true;
+        if(size > MAX_NODES) return false;
+
+        int capacity = Math.min(MAX_NODES, Math.max(size, nodeMove.length * 2));
+        nodeMove = grow(nodeMove, capacity);
+        nodeFirstChild = grow(nodeFirstChild, capacity);
+        nodeChildCount = grow(nodeChildCount, capacity);
+        nodeVisits = grow(nodeVisits, capacity);
+        nodeWins = grow(nodeWins, capacity);
+        nodeRaveVisits = grow(nodeRaveVisits, capacity);
+        nodeRaveWins = grow(nodeRaveWins, capacity);
+        return true;
+    }
+
+    private int[] grow(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, nodeCount);
+        return copy;
+    }
+
+    private float[] grow(float[] array, int capacity) {
+        float[] copy = new float[capacity];
+        System.arraycopy(array, 0, copy, 0, nodeCount);
+        return copy;
+    }
+
+    /**
+     * Puts board's empty cells at the start of empty and returns how many
+     * there are. board must be the root with some moves played.
+     * */
+    private int collectEmpty(BitBoard board) {
+        int count = rootEmpty.toArray(empty);
+        int kept = 0;
+        for(int i = 0; i < count; i++) {
+            if(board.getTeam(empty[i]) == 0) empty[kept++] = empty[i];
+        }
+        return kept;
+    }
+
+    private static byte opponent(byte team) {
+        return team == 1 ? (byte) 2 : (byte) 1;
+    }
+
+    @Override
+    public Serializable getSaveState() {
+        // Nothing carries over between moves
+        return null;
+    }
+
+    @Override
+    public void setSaveState(Serializable state) {}
+
+    @Override
+    public String getAIType() {
+        return "MCTS";
+    }
+
+    @Override
+    public String getName() {
+        return "MCTS";
+    }
+
+    @Override
+    public void win() {}
+
+    @Override
+    public void lose(Game game) {}
+}
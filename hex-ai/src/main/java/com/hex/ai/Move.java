@@ -0,0 +1,18 @@
+package com.hex.ai;
+
+class Move implements Comparable<Move> {
+    public int row;
+    public int column;
+    private final int value;
+
+    public Move(int row, int column, int value) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+    }
+
+    @Override
+    public int compareTo(Move other) {
+        return value - other.value;
+    }
+}
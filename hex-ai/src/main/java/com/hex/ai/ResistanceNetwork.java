@@ -0,0 +1,175 @@
+package com.hex.ai;
+
+/**
+ * Treats each team's side of the board as an electrical circuit, as in
+ * Anshelevich's Hexy.
+ *
+ * Every empty cell is a node, and cells that are neighbours in the
+ * EvaluationGraph are joined by a unit resistor. The team's own chains are
+ * already folded into the graph, so they conduct freely, and the opponent's
+ * stones don't conduct at all. The corner cells touching one of the team's
+ * edges are held at 1V and the two touching the other at 0V. The current that
+ * flows is the team's conductance: high when it has many short, independent
+ * ways across.
+ *
+ * Node voltages come from a conjugate gradient solve of the circuit. The
+ * graph's neighbour lists are the sparse matrix, so nothing is built per
+ * call, and the solver's vectors are allocated once and reused.
+ **/
+class ResistanceNetwork {
+    private static final int RED = 1;
+    private static final int BLUE = 2;
+    // Stop once the residual's this small, squared and relative to the
+    // right hand side's
+    private static final double TOLERANCE = 1e-12;
+
+    private final EvaluationGraph graph;
+    private final int[][] pieces;
+    private final int size;
+
+    // The empty cells that aren't held at a voltage, and each cell's position
+    // among them, or -1
+    private final int[] free;
+    private final int[] index;
+    private int freeCount;
+
+    // Solver state, indexed like free
+    private final double[] voltage;
+    private final double[] residual;
+    private final double[] direction;
+    private final double[] product;
+    private final int[] degree;
+
+    /**
+     * @param pieces
+     *            The board graph was built from
+     * */
+    ResistanceNetwork(EvaluationGraph graph, int[][] pieces) {
+        this.graph = graph;
+        this.pieces = pieces;
+        this.size = pieces.length;
+
+        int cells = size * size;
+        free = new int[cells];
+        index = new int[cells];
+        voltage = new double[cells];
+        residual = new double[cells];
+        direction = new double[cells];
+        product = new double[cells];
+        degree = new int[cells];
+    }
+
+    /**
+     * Returns the colour's conductance from one edge to the other, or
+     * Double.POSITIVE_INFINITY if it's already joined them
+     * */
+    double conductance(int colour) {
+        int sourceA = 0;
+        int sourceB = colour == RED ? (size - 1) * size : size - 1;
+        int sinkA = colour == RED ? size - 1 : (size - 1) * size;
+        int sinkB = size * size - 1;
+
+        if(touches(colour, sourceA, sinkA, sinkB) || touches(colour, sourceB, sinkA, sinkB)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        freeCount = 0;
+        for(int i = 0; i < size * size; i++) {
+            index[i] = -1;
+        }
+        for(int row = 1; row < size - 1; row++) {
+            for(int column = 1; column < size - 1; column++) {
+                if(pieces[row][column] == 0) {
+                    int cell = row * size + column;
+                    index[cell] = freeCount;
+                    free[freeCount++] = cell;
+                }
+            }
+        }
+
+        // Kirchhoff's current law at each free cell. The sources feed the
+        // right hand side, the sinks are at 0V and drop out.
+        double rr = 0;
+        for(int k = 0; k < freeCount; k++) {
+            int cell = free[k];
+            int[] neighbours = graph.getNeighbours(colour, cell);
+            int count = graph.getNeighbourCount(colour, cell);
+            double fed = 0;
+            for(int n = 0; n < count; n++) {
+                if(neighbours[n] == sourceA || neighbours[n] == sourceB) fed++;
+            }
+            degree[k] = count;
+            voltage[k] = 0;
+            residual[k] = fed;
+            direction[k] = fed;
+            rr += fed * fed;
+        }
+        if(rr == 0) return 0;
+
+        double stop = rr * TOLERANCE;
+        for(int iteration = 0; iteration < freeCount && rr > stop; iteration++) {
+            multiply(colour, direction, product);
+            double pq = 0;
+            for(int k = 0; k < freeCount; k++) {
+                pq += direction[k] * product[k];
+            }
+            double alpha = rr / pq;
+            double next = 0;
+            for(int k = 0; k < freeCount; k++) {
+                voltage[k] += alpha * direction[k];
+                residual[k] -= alpha * product[k];
+                next += residual[k] * residual[k];
+            }
+            double beta = next / rr;
+            for(int k = 0; k < freeCount; k++) {
+                direction[k] = residual[k] + beta * direction[k];
+            }
+            rr = next;
+        }
+
+        return current(colour, sourceA, sourceB) + current(colour, sourceB, sourceA);
+    }
+
+    /**
+     * True if the cell's list for colour includes either sink
+     * */
+    private boolean touches(int colour, int cell, int sinkA, int sinkB) {
+        int[] neighbours = graph.getNeighbours(colour, cell);
+        int count = graph.getNeighbourCount(colour, cell);
+        for(int n = 0; n < count; n++) {
+            if(neighbours[n] == sinkA || neighbours[n] == sinkB) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The current leaving a source, through its free neighbours
+     * */
+    private double current(int colour, int source, int otherSource) {
+        int[] neighbours = graph.getNeighbours(colour, source);
+        int count = graph.getNeighbourCount(colour, source);
+        double current = 0;
+        for(int n = 0; n < count; n++) {
+            int k = index[neighbours[n]];
+            if(k != -1) current += 1 - voltage[k];
+            else if(neighbours[n] != otherSource) current += 1;
+        }
+        return current;
+    }
+
+    /**
+     * out = the circuit's conductance matrix times in, over the free cells
+     * */
+    private void multiply(int colour, double[] in, double[] out) {
+        for(int k = 0; k < freeCount; k++) {
+            int[] neighbours = graph.getNeighbours(colour, free[k]);
+            int count = graph.getNeighbourCount(colour, free[k]);
+            double sum = degree[k] * in[k];
+            for(int n = 0; n < count; n++) {
+                int j = index[neighbours[n]];
+                if(j != -1) sum -= in[j];
+            }
+            out[k] = sum;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hex.ai;
+
+import com.hex.core.Game;
+import com.hex.core.PlayingEntity;
+import com.hex.core.Timer;
+
+/**
+ * Works out how long an AI can think about a move without losing on time.
+ *
+ * The Timer only updates a player's time once a second, so the last second
+ * is never relied on.
+ **/
+final class TimeBudget {
+    public static final long UNLIMITED = -1;
+    // The Timer's update interval
+    private static final long MARGIN = 1000;
+    private static final long MINIMUM = 100;
+    // Don't plan for fewer moves than this in a timed match
+    private static final int MIN_MOVES_LEFT = 10;
+
+    private TimeBudget() {}
+
+    /**
+     * Returns the milliseconds player should spend on this move, or
+     * UNLIMITED if the game isn't timed
+     *
+     * @param emptyCells
+     *            Cells left on the board. Each player fills about half.
+     * */
+    public static long forMove(Game game, PlayingEntity player, int emptyCells) {
+        Timer timer = game.gameOptions.timer;
+        if(timer == null || timer.type == Timer.NO_TIMER) return UNLIMITED;
+
+        // The Timer hasn't ticked yet on the first move
+        long available = player.getTime() > 0 ? player.getTime() : timer.totalTime + timer.additionalTime;
+        long budget;
+        if(timer.type == Timer.PER_MOVE) {
+            budget = available - MARGIN;
+        }
+        else {
+            int movesLeft = Math.max(MIN_MOVES_LEFT, (emptyCells + 1) / 2);
+            budget = Math.min(available / movesLeft + timer.additionalTime, available / 2) - MARGIN;
+        }
+        return Math.max(MINIMUM, budget);
+    }
+}
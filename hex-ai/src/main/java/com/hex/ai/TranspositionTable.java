@@ -0,0 +1,109 @@
+package com.hex.ai;
+
+/**
+ * A fixed-size hash table of search results, preallocated from a memory
+ * budget. Each entry packs the score, the depth it was searched to, whether
+ * the score is exact or a bound, and the best move into one long.
+ *
+ * Slots come in pairs. The first keeps the deepest result seen for its
+ * bucket and the second takes whatever the first turns away, so deep results
+ * aren't pushed out by the flood of shallow ones.
+ *
+ * Safe to share between search threads without locking. Each slot stores
+ * key ^ data next to data, so a slot half written by another thread fails
+ * the key check and reads as a miss.
+ **/
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    public static final int NO_MOVE = -1;
+
+    // Two longs per slot
+    private static final int BYTES_PER_SLOT = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param bytes
+     *            Memory to use. Rounded down to a power of two slots, with at
+     *            least one bucket.
+     * */
+    public TranspositionTable(long bytes) {
+        int slots = 2;
+        while(slots * 2L * BYTES_PER_SLOT <= bytes && slots < (1 << 30)) {
+            slots *= 2;
+        }
+        keys = new long[slots];
+        data = new long[slots];
+        mask = slots / 2 - 1;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public void clear() {
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+            data[i] = 0;
+        }
+    }
+
+    /**
+     * Returns the entry for key, or 0 if there isn't one
+     * */
+    public long probe(long key) {
+        int slot = bucket(key);
+        long entry = data[slot];
+        if((keys[slot] ^ entry) == key && entry != 0) return entry;
+        entry = data[slot + 1];
+        if((keys[slot + 1] ^ entry) == key && entry != 0) return entry;
+        return 0;
+    }
+
+    /**
+     * @param move
+     *            The best move found, or NO_MOVE
+     * */
+    public void store(long key, int score, int depth, int flag, int move) {
+        long entry = pack(score, depth, flag, move);
+        int slot = bucket(key);
+
+        long deepest = data[slot];
+        if(deepest == 0 || depth >= depth(deepest)) {
+            keys[slot] = key ^ entry;
+            data[slot] = entry;
+        }
+        else {
+            keys[slot + 1] = key ^ entry;
+            data[slot + 1] = entry;
+        }
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+
+    private static long pack(int score, int depth, int flag, int move) {
+        return (score & 0xFFFFFFFFL) | ((long) (depth & 0xFF) << 32) | ((long) flag << 40) | ((long) (move + 1) << 42);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> 42) - 1;
+    }
+}
@@ -0,0 +1,329 @@
+package com.hex.ai;
+
+import com.hex.core.BitBoard;
+import com.hex.core.BoardTopology;
+
+/**
+ * H-search, after Anshelevich: finds a team's virtual connections from its
+ * start edge. A virtual connection (VC) to a cell holds whatever the opponent
+ * does, as long as the team answers in its carrier, the cells it needs. A
+ * semi-connection (SC) needs one more move first, its key.
+ *
+ * Connections are grown out from the start edge with two rules:
+ * - AND: a connection to a cell, plus the cell's link to the next one
+ * (touching, a bridge, or a bridge to the end edge), is a connection to the
+ * next one. Through the team's own stone it's as strong as the first; through
+ * an empty cell it needs that cell, so it's a SC keyed there.
+ * - OR: SCs to the same cell whose carriers have nothing in common are a VC,
+ * since the opponent can't spoil them all with one move.
+ *
+ * A VC to the end edge means the team has already won. SCs to it mean the
+ * opponent must play where all their carriers meet, or lose. Everything
+ * found is sound. Not everything is found: each cell keeps only a few
+ * connections, and only ones starting at the start edge.
+ *
+ * There's no updating a position a stone at a time. Which connections a
+ * point keeps would depend on the order the stones went down, so compute()
+ * always starts over, and Bee's search calls it at every node.
+ *
+ * Carriers are bit sets laid out like BitBoard.getPlane(), and the end edge
+ * is one extra point after the last cell.
+ **/
+public class VirtualConnections {
+    // Connections kept per point
+    private static final int VC_LIMIT = 4;
+    private static final int SC_LIMIT = 8;
+    private static final int SC_FLAG = 1 << 4;
+
+    private final BoardTopology topology;
+    private final byte team;
+    private final int cells;
+    private final int words;
+    private final int end;
+
+    private final long[] own;
+    private final long[] opponent;
+
+    private final int[] vcCount;
+    private final long[] vc;
+    private final int[] scCount;
+    private final long[] sc;
+    private final int[] scKey;
+
+    // Connections whose consequences haven't been followed up yet, as
+    // point << 5 | SC_FLAG if a SC | slot
+    private final int[] queue;
+    private int queueHead;
+    private int queueTail;
+
+    // Scratch carriers
+    private final long[] carrier;
+    private final long[] linked;
+    private final long[] intersection;
+    private final long[] union;
+
+    public VirtualConnections(int gridSize, byte team) {
+        this.topology = BoardTopology.get(gridSize);
+        this.team = team;
+        this.cells = gridSize * gridSize;
+        this.words = (cells + 63) >>> 6;
+        this.end = cells;
+
+        own = new long[words];
+        opponent = new long[words];
+        vcCount = new int[cells + 1];
+        vc = new long[(cells + 1) * VC_LIMIT * words];
+        scCount = new int[cells + 1];
+        sc = new long[(cells + 1) * SC_LIMIT * words];
+        scKey = new int[(cells + 1) * SC_LIMIT];
+        queue = new int[2 * (cells + 1) * (VC_LIMIT + SC_LIMIT)];
+        carrier = new long[words];
+        linked = new long[words];
+        intersection = new long[words];
+        union = new long[words];
+    }
+
+    public byte getTeam() {
+        return team;
+    }
+
+    /**
+     * Finds the connections on board from scratch
+     * */
+    public void compute(BitBoard board) {
+        long[] ownPlane = board.getPlane(team);
+        long[] opponentPlane = board.getPlane(team == 1 ? (byte) 2 : (byte) 1);
+        for(int w = 0; w < words; w++) {
+            own[w] = ownPlane[w];
+            opponent[w] = opponentPlane[w];
+            carrier[w] = 0;
+        }
+        for(int p = 0; p <= cells; p++) {
+            vcCount[p] = 0;
+            scCount[p] = 0;
+        }
+        queueHead = 0;
+        queueTail = 0;
+
+        for(int cell : topology.getEdgeCells(BoardTopology.startEdge(team))) {
+            addVC(cell, carrier);
+        }
+        close();
+    }
+
+    /**
+     * True if the team is virtually connected edge to edge
+     * */
+    public boolean isConnected() {
+        return vcCount[end] > 0;
+    }
+
+    /**
+     * True if the team is one move from being virtually connected
+     * */
+    public boolean isSemiConnected() {
+        return scCount[end] > 0;
+    }
+
+    /**
+     * Fills mustPlay with the cells every edge to edge SC needs, where the
+     * opponent has to play to stop the team connecting. Empty means the
+     * opponent can't stop it. Returns false, leaving mustPlay alone, if there
+     * are no SCs.
+     * */
+    public boolean getMustPlay(long[] mustPlay) {
+        if(scCount[end] == 0) return false;
+        System.arraycopy(sc, end * SC_LIMIT * words, mustPlay, 0, words);
+        for(int i = 1; i < scCount[end]; i++) {
+            int from = (end * SC_LIMIT + i) * words;
+            for(int w = 0; w < words; w++) {
+                mustPlay[w] &= sc[from + w];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns one edge to edge VC's carrier, or null if there isn't one
+     * */
+    public long[] getConnectionCarrier() {
+        if(vcCount[end] == 0) return null;
+        long[] result = new long[words];
+        System.arraycopy(vc, end * VC_LIMIT * words, result, 0, words);
+        return result;
+    }
+
+    private void close() {
+        while(queueHead < queueTail) {
+            int entry = queue[queueHead++];
+            int point = entry >>> 5;
+            int slot = entry & (SC_FLAG - 1);
+            boolean semi = (entry & SC_FLAG) != 0;
+            if(point == end) continue;
+
+            boolean stone = isOwn(point);
+            // A SC only runs on through our own stone
+            if(semi && !stone) continue;
+            long[] source = semi ? sc : vc;
+            System.arraycopy(source, (point * (semi ? SC_LIMIT : VC_LIMIT) + slot) * words, carrier, 0, words);
+            int key = semi ? scKey[point * SC_LIMIT + slot] : point;
+            extend(point, stone, semi, key);
+        }
+    }
+
+    /**
+     * The AND rule, from the connection to from held in carrier
+     * */
+    private void extend(int from, boolean stone, boolean semi, int key) {
+        // Touching
+        int[] start = topology.getNeighbourStart();
+        int[] neighbours = topology.getNeighbours();
+        for(int i = start[from]; i < start[from + 1]; i++) {
+            int to = neighbours[i];
+            if(!contains(carrier, to)) link(to, stone, semi, key, from, -1, -1);
+        }
+        if(topology.isOnEdge(from, BoardTopology.endEdge(team))) link(end, stone, semi, key, from, -1, -1);
+
+        // Bridges, whose two carrier cells must both be free
+        int[] bridgeStart = topology.getBridgeStart();
+        int[] bridges = topology.getBridges();
+        int[] bridgeCarriers = topology.getBridgeCarriers();
+        for(int b = bridgeStart[from]; b < bridgeStart[from + 1]; b++) {
+            int to = bridges[b];
+            int left = bridgeCarriers[2 * b];
+            int right = bridgeCarriers[2 * b + 1];
+            if(!isEmpty(left) || !isEmpty(right) || contains(carrier, to) || contains(carrier, left) || contains(carrier, right)) continue;
+            link(to, stone, semi, key, from, left, right);
+        }
+
+        // A bridge to the end edge, through the two edge cells it touches
+        int endEdge = BoardTopology.endEdge(team);
+        if(!topology.isOnEdge(from, endEdge)) {
+            int left = -1;
+            int right = -1;
+            for(int i = start[from]; i < start[from + 1]; i++) {
+                int cell = neighbours[i];
+                if(!topology.isOnEdge(cell, endEdge)) continue;
+                if(left == -1) left = cell;
+                else right = cell;
+            }
+            if(right != -1 && isEmpty(left) && isEmpty(right) && !contains(carrier, left) && !contains(carrier, right)) {
+                link(end, stone, semi, key, from, left, right);
+            }
+        }
+    }
+
+    /**
+     * Adds the connection to to, through from and the link's own carrier
+     * cells (or -1)
+     * */
+    private void link(int to, boolean stone, boolean semi, int key, int from, int left, int right) {
+        if(to != end && isOpponent(to)) return;
+
+        long[] next = linked;
+        System.arraycopy(carrier, 0, next, 0, words);
+        if(left != -1) add(next, left);
+        if(right != -1) add(next, right);
+        if(stone) {
+            if(semi) addSC(to, next, key);
+            else addVC(to, next);
+        }
+        else {
+            add(next, from);
+            addSC(to, next, from);
+        }
+    }
+
+    private void addVC(int point, long[] connection) {
+        if(point != end && (isOpponent(point) || contains(connection, point))) return;
+        int count = vcCount[point];
+        for(int i = 0; i < count; i++) {
+            if(subset(vc, (point * VC_LIMIT + i) * words, connection)) return;
+        }
+        if(count == VC_LIMIT) return;
+
+        System.arraycopy(connection, 0, vc, (point * VC_LIMIT + count) * words, words);
+        vcCount[point] = count + 1;
+        queue[queueTail++] = point << 5 | count;
+    }
+
+    private void addSC(int point, long[] connection, int key) {
+        if(point != end && (isOpponent(point) || contains(connection, point))) return;
+        for(int i = 0; i < vcCount[point]; i++) {
+            if(subset(vc, (point * VC_LIMIT + i) * words, connection)) return;
+        }
+        int count = scCount[point];
+        for(int i = 0; i < count; i++) {
+            if(subset(sc, (point * SC_LIMIT + i) * words, connection)) return;
+        }
+        if(count == SC_LIMIT) return;
+
+        System.arraycopy(connection, 0, sc, (point * SC_LIMIT + count) * words, words);
+        scKey[point * SC_LIMIT + count] = key;
+        scCount[point] = count + 1;
+        queue[queueTail++] = point << 5 | SC_FLAG | count;
+        or(point, count);
+    }
+
+    /**
+     * The OR rule. Starting from the new SC, takes in each other SC that
+     * narrows down where they all meet, until nothing's left in common.
+     * */
+    private void or(int point, int slot) {
+        int from = (point * SC_LIMIT + slot) * words;
+        System.arraycopy(sc, from, intersection, 0, words);
+        System.arraycopy(sc, from, union, 0, words);
+        for(int i = 0; i < scCount[point]; i++) {
+            if(i == slot) continue;
+            int other = (point * SC_LIMIT + i) * words;
+            boolean narrows = false;
+            boolean empty = true;
+            for(int w = 0; w < words; w++) {
+                long meet = intersection[w] & sc[other + w];
+                if(meet != intersection[w]) narrows = true;
+                if(meet != 0) empty = false;
+            }
+            if(!narrows) continue;
+            for(int w = 0; w < words; w++) {
+                intersection[w] &= sc[other + w];
+                union[w] |= sc[other + w];
+            }
+            if(empty) {
+                long[] connection = new long[words];
+                System.arraycopy(union, 0, connection, 0, words);
+                addVC(point, connection);
+                return;
+            }
+        }
+    }
+
+    private boolean isOwn(int cell) {
+        return (own[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private boolean isOpponent(int cell) {
+        return (opponent[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private boolean isEmpty(int cell) {
+        return ((own[cell >>> 6] | opponent[cell >>> 6]) & (1L << cell)) == 0;
+    }
+
+    private static boolean contains(long[] set, int cell) {
+        return (set[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static void add(long[] set, int cell) {
+        set[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * True if the set at array[from] is inside set
+     * */
+    private boolean subset(long[] array, int from, long[] set) {
+        for(int w = 0; w < words; w++) {
+            if((array[from + w] & ~set[w]) != 0) return false;
+        }
+        return true;
+    }
+}
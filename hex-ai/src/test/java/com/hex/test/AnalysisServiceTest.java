@@ -0,0 +1,121 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.hex.ai.Analysis;
+import com.hex.ai.AnalysisService;
+import com.hex.core.Game;
+import com.hex.core.GameAction;
+import com.hex.core.PlayerObject;
+import com.hex.core.Point;
+
+public class AnalysisServiceTest {
+    @Test
+    public void testFindsWinningMove() throws InterruptedException {
+        Game game = TestGames.winningMove(new PlayerObject(1));
+
+        final AtomicReference<Analysis> result = new AtomicReference<Analysis>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        AnalysisService service = new AnalysisService(2, 4000);
+        try {
+            service.analyze(game, 3, new AnalysisService.Listener() {
+                @Override
+                public void onAnalysis(Analysis analysis) {
+                    result.set(analysis);
+                    if(analysis.isFinished()) finished.countDown();
+                }
+            });
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+        }
+        finally {
+            service.shutdown();
+        }
+
+        Analysis analysis = result.get();
+        assertEquals(1, analysis.getTeam());
+        assertEquals(game.getPositionHash(), analysis.getPositionHash());
+        assertEquals(3, analysis.getCandidates().size());
+        assertEquals(2, analysis.getCandidates().get(0).x);
+        assertEquals(0, analysis.getCandidates().get(0).y);
+        assertTrue(analysis.getWinProbability() > 0.8);
+        assertTrue(analysis.getPlayouts() >= 4000);
+    }
+
+    @Test
+    public void testStopSilencesListener() throws InterruptedException {
+        Game game = TestGames.newGame(11, new PlayerObject(1));
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch first = new CountDownLatch(1);
+        AnalysisService service = new AnalysisService(2, 100000000);
+        try {
+            service.analyze(game, 5, new AnalysisService.Listener() {
+                @Override
+                public void onAnalysis(Analysis analysis) {
+                    calls.incrementAndGet();
+                    first.countDown();
+                }
+            });
+            assertTrue(first.await(10, TimeUnit.SECONDS));
+            service.stop();
+            int stopped = calls.get();
+            Thread.sleep(600);
+            assertEquals(stopped, calls.get());
+        }
+        finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testRestartsOnNewPosition() throws InterruptedException {
+        Game game = TestGames.newGame(5, new PlayerObject(1));
+        final AtomicInteger oldCalls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Analysis> result = new AtomicReference<Analysis>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        AnalysisService service = new AnalysisService(1, 20000);
+        try {
+            service.analyze(game, 25, new AnalysisService.Listener() {
+                @Override
+                public void onAnalysis(Analysis analysis) {
+                    oldCalls.incrementAndGet();
+                    started.countDown();
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            GameAction.makeMove(game.getPlayer1(), new Point(2, 2), game);
+            // The old job may report until analyze() cancels it, so only
+            // count from the new job's first report, which comes after that
+            final AtomicInteger stopped = new AtomicInteger(-1);
+            service.analyze(game, 25, new AnalysisService.Listener() {
+                @Override
+                public void onAnalysis(Analysis analysis) {
+                    stopped.compareAndSet(-1, oldCalls.get());
+                    result.set(analysis);
+                    if(analysis.isFinished()) finished.countDown();
+                }
+            });
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+            assertEquals(stopped.get(), oldCalls.get());
+        }
+        finally {
+            service.shutdown();
+        }
+
+        Analysis analysis = result.get();
+        assertEquals(game.getPositionHash(), analysis.getPositionHash());
+        assertEquals(24, analysis.getCandidates().size());
+        for(Analysis.Candidate candidate : analysis.getCandidates()) {
+            assertTrue(candidate.x != 2 || candidate.y != 2);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.hex.ai.BeeGameAI;
+import com.hex.core.Game;
+import com.hex.core.Game.GameOptions;
+import com.hex.core.GameAction;
+import com.hex.core.Move;
+import com.hex.core.PlayerObject;
+import com.hex.core.Point;
+import com.hex.core.Timer;
+
+public class BeeGameAITest {
+    private Move reply(int threads) {
+        return reply(threads, BeeGameAI.Evaluator.TWO_DISTANCE);
+    }
+
+    private Move reply(int threads, BeeGameAI.Evaluator evaluator) {
+        GameOptions options = new GameOptions();
+        options.gridSize = 6;
+        BeeGameAI ai = new BeeGameAI(2, 6, 3, 4, threads);
+        ai.setEvaluator(evaluator);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(1, 3), game);
+        ai.getPlayerTurn(game);
+        assertTrue(ai.getLastNodes() > 0);
+        ai.quit();
+        return game.getMoveList().getMove();
+    }
+
+    @Test
+    public void testParallelSearchMatchesSerial() {
+        Move serial = reply(1);
+        assertEquals(2, serial.getTeam());
+        for(int threads = 2; threads <= 4; threads++) {
+            Move parallel = reply(threads);
+            assertEquals(serial.getX(), parallel.getX());
+            assertEquals(serial.getY(), parallel.getY());
+        }
+    }
+
+    /**
+     * Bee's reply on a 7x7 board with a few stones down, deep enough that the
+     * beam reaches the same positions down different lines
+     * */
+    private Move deepReply(int threads) {
+        GameOptions options = new GameOptions();
+        options.gridSize = 7;
+        BeeGameAI ai = new BeeGameAI(2, 7, 4, 5, threads);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        game.gamePieces[3][3].setTeam((byte) 1, game);
+        game.gamePieces[2][4].setTeam((byte) 2, game);
+        game.gamePieces[4][1].setTeam((byte) 1, game);
+        game.gamePieces[1][2].setTeam((byte) 2, game);
+        GameAction.makeMove(game.getPlayer1(), new Point(5, 4), game);
+        ai.getPlayerTurn(game);
+        ai.quit();
+        return game.getMoveList().getMove();
+    }
+
+    @Test
+    public void testTranspositionsMatchSerial() {
+        Move serial = deepReply(1);
+        assertEquals(2, serial.getTeam());
+        for(int threads = 2; threads <= 4; threads++) {
+            for(int run = 0; run < 3; run++) {
+                Move parallel = deepReply(threads);
+                assertEquals(serial.getX(), parallel.getX());
+                assertEquals(serial.getY(), parallel.getY());
+            }
+        }
+    }
+
+    @Test
+    public void testResistanceSearchMatchesSerial() {
+        Move serial = reply(1, BeeGameAI.Evaluator.RESISTANCE);
+        assertEquals(2, serial.getTeam());
+        Move parallel = reply(3, BeeGameAI.Evaluator.RESISTANCE);
+        assertEquals(serial.getX(), parallel.getX());
+        assertEquals(serial.getY(), parallel.getY());
+    }
+
+    @Test
+    public void testTimedSearchKeepsToBudget() {
+        GameOptions options = new GameOptions();
+        options.gridSize = 9;
+        // Two seconds a move, so a one second budget after the safety margin
+        options.timer = new Timer(0, 2, Timer.PER_MOVE);
+        BeeGameAI ai = new BeeGameAI(2, 9, 1, 6);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(4, 4), game);
+
+        long start = System.currentTimeMillis();
+        ai.getPlayerTurn(game);
+        long time = System.currentTimeMillis() - start;
+        ai.quit();
+
+        assertEquals(2, game.getMoveList().getMove().getTeam());
+        assertTrue(time < 1500);
+        // Deepened past the fixed depth of 1
+        assertTrue(ai.getLastNodes() > 81);
+    }
+
+    private List<Move> replies(BeeGameAI ai) throws InterruptedException {
+        GameOptions options = new GameOptions();
+        options.gridSize = 6;
+        Game game = new Game(options, new PlayerObject(1), ai);
+        List<Move> replies = new ArrayList<Move>();
+        int hits = 0;
+        // Bee ponders a reply to the second move, but not to the others
+        int[][] humanMoves = { { 1, 3 }, { 3, 3 }, { 4, 4 }, { 2, 1 } };
+        for(int[] cell : humanMoves) {
+            if(game.getBoard().getTeam(cell[0], cell[1]) != 0) continue;
+            GameAction.makeMove(game.getPlayer1(), new Point(cell[0], cell[1]), game);
+            ai.getPlayerTurn(game);
+            replies.add(game.getMoveList().getMove());
+            // A reply played from pondering needs no search
+            if(ai.getPonderHits() > hits) assertEquals(0, ai.getLastNodes());
+            hits = ai.getPonderHits();
+            ai.waitForPondering();
+        }
+        ai.quit();
+        return replies;
+    }
+
+    @Test
+    public void testPonderingMatchesThinking() throws InterruptedException {
+        BeeGameAI thinker = new BeeGameAI(2, 6, 3, 4);
+        List<Move> thought = replies(thinker);
+        BeeGameAI ponderer = new BeeGameAI(2, 6, 3, 4);
+        ponderer.setPonder(true);
+        List<Move> pondered = replies(ponderer);
+        assertEquals(0, thinker.getPonderHits());
+        assertEquals(1, ponderer.getPonderHits());
+        assertEquals(thought.size(), pondered.size());
+        for(int i = 0; i < thought.size(); i++) {
+            assertEquals(thought.get(i).getX(), pondered.get(i).getX());
+            assertEquals(thought.get(i).getY(), pondered.get(i).getY());
+        }
+    }
+
+    @Test
+    public void testUndoStopsPondering() {
+        GameOptions options = new GameOptions();
+        options.gridSize = 11;
+        BeeGameAI ai = new BeeGameAI(2, 11, 4, 6);
+        ai.setPonder(true);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(5, 5), game);
+        ai.getPlayerTurn(game);
+
+        long start = System.currentTimeMillis();
+        ai.undoCalled();
+        assertTrue(System.currentTimeMillis() - start < 500);
+        ai.quit();
+    }
+
+    /**
+     * A copy of Bee's own board, which it keeps private
+     * */
+    private static int[][] pieces(BeeGameAI ai) throws ReflectiveOperationException {
+        Field field = BeeGameAI.class.getDeclaredField("pieces");
+        field.setAccessible(true);
+        int[][] pieces = (int[][]) field.get(ai);
+        int[][] copy = new int[pieces.length][];
+        for(int i = 0; i < pieces.length; i++) {
+            copy[i] = pieces[i].clone();
+        }
+        return copy;
+    }
+
+    @Test
+    public void testSaveStateIsCompact() throws IOException, ReflectiveOperationException {
+        GameOptions options = new GameOptions();
+        options.gridSize = 11;
+        BeeGameAI ai = new BeeGameAI(2, 11, 1, 4);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        List<int[][]> boards = new ArrayList<int[][]>();
+        int[][] humanMoves = { { 5, 5 }, { 2, 8 }, { 8, 2 }, { 3, 3 } };
+        for(int[] cell : humanMoves) {
+            if(game.getBoard().getTeam(cell[0], cell[1]) != 0) continue;
+            GameAction.makeMove(game.getPlayer1(), new Point(cell[0], cell[1]), game);
+            ai.getPlayerTurn(game);
+            boards.add(pieces(ai));
+        }
+        ai.quit();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(ai.getSaveState());
+        out.close();
+        // A copy of the board per move would be over 500 bytes each
+        assertTrue(bytes.size() < 250);
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        BeeGameAI restored = new BeeGameAI(2, 11, 1, 4);
+        // Restoring takes back the last turn, as undo after loading a game
+        // expects
+        restored.setSaveState((Serializable) in.readObject());
+        assertArrayEquals(boards.get(boards.size() - 2), pieces(restored));
+        restored.undoCalled();
+        assertArrayEquals(boards.get(boards.size() - 3), pieces(restored));
+        restored.quit();
+    }
+
+    @Test
+    public void testUndoCancelsSearch() throws InterruptedException {
+        GameOptions options = new GameOptions();
+        options.gridSize = 11;
+        // Deep enough to search for a long time
+        final BeeGameAI ai = new BeeGameAI(2, 11, 8, 10);
+        final Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(5, 5), game);
+        Thread turn = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ai.getPlayerTurn(game);
+            }
+        });
+        turn.start();
+        Thread.sleep(300);
+
+        long start = System.currentTimeMillis();
+        ai.undoCalled();
+        assertTrue(System.currentTimeMillis() - start < 500);
+        turn.join(500);
+        assertTrue(!turn.isAlive());
+        assertEquals(1, game.getMoveList().getMove().getTeam());
+        ai.quit();
+    }
+}
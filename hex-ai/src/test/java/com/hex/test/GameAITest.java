@@ -0,0 +1,123 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.hex.ai.GameAI;
+import com.hex.core.EmptyCells;
+import com.hex.core.Game;
+import com.hex.core.Game.GameOptions;
+import com.hex.core.GameAction;
+import com.hex.core.Move;
+import com.hex.core.PlayerObject;
+import com.hex.core.Point;
+
+public class GameAITest {
+    private static Object field(GameAI ai, String name) throws ReflectiveOperationException {
+        Field field = GameAI.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(ai);
+    }
+
+    /**
+     * A copy of n, m and the pairs in use, which GameAI keeps private
+     * */
+    private static int[][] state(GameAI ai) throws ReflectiveOperationException {
+        int[] pairs = (int[]) field(ai, "pairs");
+        int pairCount = (Integer) field(ai, "pairCount");
+        return new int[][] { ((int[]) field(ai, "n")).clone(), ((int[]) field(ai, "m")).clone(), Arrays.copyOf(pairs, pairCount) };
+    }
+
+    @Test
+    public void testUndoRestoresState() throws ReflectiveOperationException {
+        GameOptions options = new GameOptions();
+        options.gridSize = 7;
+        GameAI ai = new GameAI(2);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        List<int[][]> states = new ArrayList<int[][]>();
+        states.add(state(ai));
+        int[][] humanMoves = { { 1, 1 }, { 5, 1 }, { 1, 5 }, { 5, 5 } };
+        for(int[] cell : humanMoves) {
+            if(game.getBoard().getTeam(cell[0], cell[1]) != 0) continue;
+            GameAction.makeMove(game.getPlayer1(), new Point(cell[0], cell[1]), game);
+            ai.getPlayerTurn(game);
+            states.add(state(ai));
+        }
+        assertTrue(states.get(states.size() - 1)[2].length > 0);
+
+        for(int turn = states.size() - 2; turn >= 0; turn--) {
+            ai.undoCalled();
+            int[][] state = state(ai);
+            for(int i = 0; i < state.length; i++) {
+                assertArrayEquals(states.get(turn)[i], state[i]);
+            }
+        }
+        assertEquals(0, state(ai)[2].length);
+    }
+
+    @Test
+    public void testMovesWithoutPause() {
+        GameOptions options = new GameOptions();
+        options.gridSize = 7;
+        GameAI ai = new GameAI(2, new Random(1));
+        ai.setPause(false);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(1, 1), game);
+
+        long start = System.currentTimeMillis();
+        ai.getPlayerTurn(game);
+        long time = System.currentTimeMillis() - start;
+
+        assertEquals(2, game.getMoveList().getMove().getTeam());
+        assertTrue(time < 250);
+    }
+
+    /**
+     * Plays GameAI against random moves until someone wins. Returns GameAI's
+     * moves, then the size of its save state.
+     * */
+    private static List<Integer> play(long seed) throws IOException {
+        GameOptions options = new GameOptions();
+        options.gridSize = 7;
+        GameAI ai = new GameAI(2, new Random(seed));
+        Game game = new Game(options, new PlayerObject(1), ai);
+        Random human = new Random(-seed);
+        List<Integer> moves = new ArrayList<Integer>();
+        while(!game.getConnectivity().isConnected((byte) 1) && !game.getConnectivity().isConnected((byte) 2)) {
+            EmptyCells empty = game.getEmptyCells();
+            int cell = empty.get(human.nextInt(empty.size()));
+            GameAction.makeMove(game.getPlayer1(), new Point(cell / 7, cell % 7), game);
+            if(game.getConnectivity().isConnected((byte) 1)) break;
+            ai.getPlayerTurn(game);
+            Move move = game.getMoveList().getMove();
+            moves.add(move.getX() * 7 + move.getY());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(ai.getSaveState());
+        out.close();
+        moves.add(bytes.size());
+        return moves;
+    }
+
+    @Test
+    public void testMovesMatchListPairs() throws IOException {
+        // Recorded with the same seeds before pairs were packed into an int
+        // array, when each pair was a list of lists
+        assertEquals(Arrays.asList(24, 16, 21, 23, 19, 20, 22, 18, 234), play(2));
+        assertEquals(Arrays.asList(24, 29, 25, 33, 27, 30, 35, 32, 234), play(3));
+    }
+}
@@ -0,0 +1,92 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.hex.ai.Journal;
+
+public class JournalTest {
+    private static Journal.State state(final int[] slots) {
+        return new Journal.State() {
+            @Override
+            public void set(int slot, int value) {
+                slots[slot] = value;
+            }
+        };
+    }
+
+    private static Journal roundTrip(Journal journal) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(journal);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        return (Journal) in.readObject();
+    }
+
+    @Test
+    public void testUndoAfterRoundTrip() throws IOException, ClassNotFoundException {
+        Journal journal = new Journal();
+        journal.mark();
+        journal.record(0, 0, 5);
+        journal.record(1, 0, -3);
+        journal.mark();
+        journal.record(0, 5, 7);
+        // Unchanged, so not recorded
+        journal.record(1, -3, -3);
+        journal.record(Journal.MAX_SLOT, 0, (1 << 23) - 1);
+
+        Journal restored = roundTrip(journal);
+        assertEquals(2, restored.getTurns());
+        int[] slots = new int[Journal.MAX_SLOT + 1];
+        restored.replay(state(slots));
+        assertEquals(7, slots[0]);
+        assertEquals(-3, slots[1]);
+        assertEquals((1 << 23) - 1, slots[Journal.MAX_SLOT]);
+
+        assertTrue(restored.undo(state(slots)));
+        assertEquals(5, slots[0]);
+        assertEquals(-3, slots[1]);
+        assertEquals(0, slots[Journal.MAX_SLOT]);
+
+        // Still works after another trip, with a turn left
+        restored = roundTrip(restored);
+        assertEquals(1, restored.getTurns());
+        assertTrue(restored.undo(state(slots)));
+        assertArrayEquals(new int[Journal.MAX_SLOT + 1], slots);
+        assertFalse(restored.undo(state(slots)));
+    }
+
+    @Test
+    public void testSerializesCompactly() throws IOException, ClassNotFoundException {
+        Journal small = new Journal();
+        small.mark();
+        small.record(0, 0, 1);
+        Journal large = roundTrip(small);
+        for(int turn = 0; turn < 100; turn++) {
+            large.mark();
+            large.record(turn, 0, turn + 1);
+        }
+
+        ByteArrayOutputStream smallBytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(smallBytes);
+        out.writeObject(small);
+        out.close();
+        ByteArrayOutputStream largeBytes = new ByteArrayOutputStream();
+        out = new ObjectOutputStream(largeBytes);
+        out.writeObject(large);
+        out.close();
+        // A long per change and an int per turn, and a few bytes of framing
+        assertTrue(largeBytes.size() - smallBytes.size() < 100 * (8 + 4) + 20);
+    }
+}
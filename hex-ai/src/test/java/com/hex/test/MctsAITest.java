@@ -0,0 +1,87 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.hex.ai.AiTypes;
+import com.hex.ai.MctsAI;
+import com.hex.core.Game;
+
+public class MctsAITest {
+    @Test
+    public void testFindsWinningMove() {
+        MctsAI ai = new MctsAI(1, 4, 10000, 2000, 0);
+        Game game = TestGames.winningMove(ai);
+
+        assertEquals(game.getBoard().index(2, 0), ai.getBestMove(game));
+        assertEquals(2000, ai.getLastPlayouts());
+    }
+
+    @Test
+    public void testPlaysOnTheBoard() {
+        MctsAI ai = new MctsAI(1, 5, 10000, 500, 0);
+        Game game = TestGames.newGame(5, ai);
+        ai.getPlayerTurn(game);
+
+        assertEquals(1, game.getBoard().getStoneCount((byte) 1));
+        assertEquals(1, game.getMoveList().getMove().getTeam());
+    }
+
+    /**
+     * MCTS's opening on an empty 3x3 board
+     * */
+    private int opening(boolean swap) {
+        MctsAI ai = new MctsAI(1, 3, 10000, 20000, 0);
+        ai.setUseBook(false);
+        Game game = TestGames.newGame(3, ai);
+        game.gameOptions.swap = swap;
+        return ai.getBestMove(game);
+    }
+
+    @Test
+    public void testOpensWithSwapInMind() {
+        int center = 1 * 3 + 1;
+        // The centre wins outright, so it's the move that gets swapped
+        assertEquals(center, opening(false));
+        assertTrue(opening(true) != center);
+    }
+
+    @Test
+    public void testStopsOnTime() {
+        MctsAI ai = new MctsAI(1, 11, 200, 0);
+        Game game = TestGames.newGame(11, ai);
+
+        long start = System.currentTimeMillis();
+        int move = ai.getBestMove(game);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(game.getBoard().isEmpty(move / 11, move % 11));
+    }
+
+    @Test
+    public void testRegistered() {
+        assertTrue(AiTypes.newAI(AiTypes.MctsAI, 2, 7, 1) instanceof MctsAI);
+    }
+
+    @Test
+    public void testQuitCancelsSearch() throws InterruptedException {
+        final MctsAI ai = new MctsAI(1, 9, 60000, 0, 0);
+        final Game game = TestGames.newGame(9, ai);
+        Thread turn = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ai.getPlayerTurn(game);
+            }
+        });
+        turn.start();
+        Thread.sleep(200);
+
+        long start = System.currentTimeMillis();
+        ai.quit();
+        assertTrue(System.currentTimeMillis() - start < 500);
+        turn.join(500);
+        assertTrue(!turn.isAlive());
+        assertEquals(0, game.getMoveList().size());
+    }
+}
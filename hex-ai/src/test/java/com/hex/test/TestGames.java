@@ -0,0 +1,36 @@
+package com.hex.test;
+
+import com.hex.core.Game;
+import com.hex.core.Game.GameOptions;
+import com.hex.core.PlayerObject;
+import com.hex.core.PlayingEntity;
+
+/**
+ * Games set up for the AI tests
+ **/
+class TestGames {
+    private TestGames() {}
+
+    /**
+     * An empty game against a PlayerObject
+     * */
+    static Game newGame(int gridSize, PlayingEntity player1) {
+        GameOptions options = new GameOptions();
+        options.gridSize = gridSize;
+        return new Game(options, player1, new PlayerObject(2));
+    }
+
+    /**
+     * A 4x4 game that team 1, to move, wins by playing (2, 0)
+     * */
+    static Game winningMove(PlayingEntity player1) {
+        Game game = newGame(4, player1);
+        game.gamePieces[0][0].setTeam((byte) 1, game);
+        game.gamePieces[1][0].setTeam((byte) 1, game);
+        game.gamePieces[3][0].setTeam((byte) 1, game);
+        game.gamePieces[0][1].setTeam((byte) 2, game);
+        game.gamePieces[1][1].setTeam((byte) 2, game);
+        game.gamePieces[3][2].setTeam((byte) 2, game);
+        return game;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.hex.ai.TranspositionTable;
+
+public class TranspositionTableTest {
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1 << 10);
+        assertEquals(64, table.getCapacity());
+        assertEquals(0, table.probe(42));
+
+        table.store(42, -1234, 3, TranspositionTable.LOWER_BOUND, 17);
+        long entry = table.probe(42);
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(3, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.flag(entry));
+        assertEquals(17, TranspositionTable.move(entry));
+
+        table.store(43, 5, 0, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        assertEquals(TranspositionTable.NO_MOVE, TranspositionTable.move(table.probe(43)));
+
+        table.clear();
+        assertEquals(0, table.probe(42));
+    }
+
+    @Test
+    public void testKeepsDeepResults() {
+        // One bucket, so every key collides
+        TranspositionTable table = new TranspositionTable(0);
+        table.store(1, 10, 4, TranspositionTable.EXACT, 0);
+        table.store(2, 20, 1, TranspositionTable.EXACT, 0);
+        table.store(3, 30, 0, TranspositionTable.EXACT, 0);
+
+        assertEquals(10, TranspositionTable.score(table.probe(1)));
+        assertEquals(0, table.probe(2));
+        assertEquals(30, TranspositionTable.score(table.probe(3)));
+
+        table.store(4, 40, 4, TranspositionTable.EXACT, 0);
+        assertEquals(0, table.probe(1));
+        assertEquals(40, TranspositionTable.score(table.probe(4)));
+    }
+}
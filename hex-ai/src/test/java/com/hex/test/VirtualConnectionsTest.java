@@ -0,0 +1,85 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.hex.ai.BeeGameAI;
+import com.hex.ai.VirtualConnections;
+import com.hex.core.BitBoard;
+import com.hex.core.Game;
+import com.hex.core.Game.GameOptions;
+import com.hex.core.GameAction;
+import com.hex.core.Move;
+import com.hex.core.PlayerObject;
+import com.hex.core.Point;
+
+public class VirtualConnectionsTest {
+    private static boolean contains(long[] cells, int cell) {
+        return (cells[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Test
+    public void testCentreWinsSmallBoard() {
+        VirtualConnections connections = new VirtualConnections(3, (byte) 1);
+        connections.compute(new BitBoard(3));
+        assertEquals(false, connections.isConnected());
+        assertEquals(true, connections.isSemiConnected());
+
+        long[] mustPlay = new long[1];
+        assertTrue(connections.getMustPlay(mustPlay));
+        assertTrue(contains(mustPlay, 4));
+
+        BitBoard centre = new BitBoard(3);
+        centre.setTeam(1, 1, (byte) 1);
+        connections.compute(centre);
+        assertEquals(true, connections.isConnected());
+    }
+
+    @Test
+    public void testIntrusionLeavesSemiConnection() {
+        // Two stones bridged to each other and to both edges
+        BitBoard board = new BitBoard(5);
+        board.setTeam(1, 2, (byte) 1);
+        board.setTeam(3, 1, (byte) 1);
+        VirtualConnections connections = new VirtualConnections(5, (byte) 1);
+        connections.compute(board);
+        assertEquals(true, connections.isConnected());
+
+        // Taking one of the bridge's cells leaves only the other
+        board.setTeam(2, 2, (byte) 2);
+        connections.compute(board);
+        assertEquals(false, connections.isConnected());
+        assertEquals(true, connections.isSemiConnected());
+        long[] mustPlay = new long[1];
+        assertTrue(connections.getMustPlay(mustPlay));
+        assertTrue(contains(mustPlay, board.index(2, 1)));
+
+        board.setTeam(2, 1, (byte) 1);
+        connections.compute(board);
+        assertEquals(true, connections.isConnected());
+    }
+
+    @Test
+    public void testBeePlaysMustPlay() {
+        GameOptions options = new GameOptions();
+        options.gridSize = 5;
+        BeeGameAI ai = new BeeGameAI(2, 5, 2, 2);
+        Game game = new Game(options, new PlayerObject(1), ai);
+        GameAction.makeMove(game.getPlayer1(), new Point(1, 2), game);
+        GameAction.makeMove(ai, new Point(2, 2), game);
+        GameAction.makeMove(game.getPlayer1(), new Point(3, 1), game);
+
+        VirtualConnections connections = new VirtualConnections(5, (byte) 1);
+        connections.compute(game.getBoard());
+        long[] mustPlay = new long[1];
+        assertTrue(connections.getMustPlay(mustPlay));
+
+        ai.getPlayerTurn(game);
+        ai.quit();
+        Move reply = game.getMoveList().getMove();
+        assertEquals(2, reply.getTeam());
+        assertTrue(contains(mustPlay, game.getBoard().index(reply.getX(), reply.getY())));
+    }
+}
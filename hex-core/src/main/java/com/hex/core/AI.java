@@ -0,0 +1,250 @@
+package com.hex.core;
+
+public abstract class AI implements PlayingEntity {
+    private static final long serialVersionUID = 1L;
+    // Solve exactly once this few cells are left
+    public static final int DEFAULT_SOLVER_THRESHOLD = 20;
+    public static final long DEFAULT_SOLVER_NODES = 500000;
+    public static final long DEFAULT_SOLVER_TIME = 1000;
+    private String name;
+    private int color;
+    private long timeLeft;
+    public final int team;
+    // Set when the turn's cancelled. Searches check it as they go.
+    private volatile boolean skipMove = false;
+    private boolean useBook = true;
+    private int solverThreshold = DEFAULT_SOLVER_THRESHOLD;
+    private long solverNodes = DEFAULT_SOLVER_NODES;
+    private long solverTime = DEFAULT_SOLVER_TIME;
+    private transient volatile DfpnSolver solver;
+    private transient DfpnSolver.Status lastSolve;
+
+    @Override
+    public void startGame() {
+
+    }
+
+    public AI(int team) {
+        this.team = team;
+    }
+
+    @Override
+    public void getPlayerTurn(Game game) {
+        setSkipMove(false);
+        // Cleared here rather than when the solve starts, so an endMove()
+        // from then on stops it
+        DfpnSolver solver = this.solver;
+        if(solver != null) solver.resetAbort();
+    }
+
+    @Override
+    public void undoCalled() {
+        endMove();
+    }
+
+    @Override
+    public void newgameCalled() {
+        endMove();
+        // Positions solved in the last game won't come up again
+        if(solver != null) solver.clear();
+    }
+
+    @Override
+    public boolean supportsUndo(Game game) {
+        if(team == 1) {
+            return game.getPlayer2() instanceof PlayerObject;
+        }
+        else {
+            return game.getPlayer1() instanceof PlayerObject;
+        }
+    }
+
+    @Override
+    public boolean supportsNewgame() {
+        return true;
+    }
+
+    @Override
+    public void quit() {
+        endMove();
+    }
+
+    @Override
+    public boolean supportsSave() {
+        return false;
+    }
+
+    /**
+     * Cancels the turn in progress. Once this returns no move from it will
+     * land, and the search stops at its next check.
+     * */
+    @Override
+    public void endMove() {
+        synchronized(this) {
+            setSkipMove(true);
+        }
+        DfpnSolver solver = this.solver;
+        if(solver != null) solver.abort();
+    }
+
+    /**
+     * Plays hex unless the turn's been cancelled. Use it rather than
+     * GameAction.makeMove(), so a move found just as endMove() is called
+     * can't land after it returns.
+     * */
+    protected synchronized boolean makeMove(Point hex, Game game) {
+        return !skipMove && GameAction.makeMove(this, hex, game);
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setColor(int color) {
+        this.color = color;
+    }
+
+    @Override
+    public int getColor() {
+        return color;
+    }
+
+    @Override
+    public void setTime(long time) {
+        this.timeLeft = time;
+    }
+
+    @Override
+    public long getTime() {
+        return timeLeft;
+    }
+
+    @Override
+    public boolean giveUp() {
+        return false;
+    }
+
+    public boolean getUseBook() {
+        return useBook;
+    }
+
+    /**
+     * Whether to play the opening book's moves when there's a book for the
+     * board size
+     * */
+    public void setUseBook(boolean useBook) {
+        this.useBook = useBook;
+    }
+
+    /**
+     * Plays the registered opening book's move for this position, if it has
+     * one. Call it before searching. Returns true if a move was made.
+     * */
+    protected boolean playBookMove(Game game) {
+        if(!useBook || getSkipMove()) return false;
+        OpeningBook book = OpeningBook.get(game.gameOptions.gridSize);
+        if(book == null) return false;
+        Point move = book.getMove(game, (byte) team);
+        return move != null && makeMove(move, game);
+    }
+
+    public int getSolverThreshold() {
+        return solverThreshold;
+    }
+
+    /**
+     * How few empty cells there must be before trying to solve the game
+     * exactly. 0 turns the solver off.
+     * */
+    public void setSolverThreshold(int solverThreshold) {
+        this.solverThreshold = solverThreshold;
+    }
+
+    /**
+     * Limits each attempt to solve the game
+     *
+     * @param nodes
+     *            Give up after this many positions
+     * @param time
+     *            Give up after this many milliseconds
+     * */
+    public void setSolverLimits(long nodes, long time) {
+        this.solverNodes = nodes;
+        this.solverTime = time;
+    }
+
+    /**
+     * Returns what the solver made of the last position it was tried on, or
+     * null if it wasn't. WIN means the move played was a winning one. LOSS or
+     * UNKNOWN means the AI searched as usual.
+     * */
+    public DfpnSolver.Status getLastSolve() {
+        return lastSolve;
+    }
+
+    /**
+     * Once few enough cells are left, solves the game and plays the winning
+     * move if there is one. Call it before searching. Returns true if a move
+     * was made. A lost or unsolved position is left to the AI, which may
+     * still trip the opponent up.
+     * */
+    protected boolean playSolvedMove(Game game) {
+        lastSolve = null;
+        BitBoard board = game.getBoard();
+        if(solverThreshold <= 0 || getSkipMove() || board.getEmptyCount() > solverThreshold) return false;
+        // The solver doesn't know about swapping
+        if(game.gameOptions.swap && game.getMoveNumber() == 2) return false;
+
+        int gridSize = game.gameOptions.gridSize;
+        DfpnSolver solver = this.solver;
+        if(solver == null || solver.getGridSize() != gridSize) {
+            solver = new DfpnSolver(gridSize);
+            this.solver = solver;
+            // endMove() may have come before it could see the new solver
+            if(getSkipMove()) return false;
+        }
+        long time = solverTime;
+        Timer timer = game.gameOptions.timer;
+        // Leave most of a timed player's clock for searching
+        if(timer != null && timer.type != Timer.NO_TIMER && getTime() > 0) time = Math.min(time, getTime() / 10);
+        lastSolve = solver.solve(board, (byte) team, solverNodes, time);
+        if(lastSolve != DfpnSolver.Status.WIN || solver.getBestMove() == -1) return false;
+        int cell = solver.getBestMove();
+        return makeMove(new Point(cell / gridSize, cell % gridSize), game);
+    }
+
+    /**
+     * Returns how many positions the last move's search looked at, for
+     * comparing speed. 0 if the AI doesn't count them.
+     * */
+    public long getLastNodes() {
+        return 0;
+    }
+
+    public boolean getSkipMove() {
+        return skipMove;
+    }
+
+    private void setSkipMove(boolean skipMove) {
+        this.skipMove = skipMove;
+    }
+
+    @Override
+    public byte getTeam() {
+        return (byte) team;
+    }
+
+    @Override
+    public Player getType() {
+        return Player.AI;
+    }
+
+    public abstract String getAIType();
+}
@@ -0,0 +1,142 @@
+package com.hex.core;
+
+/**
+ * Packed copy of the board. Each team has a plane of bits, one per cell, and
+ * a third plane marks the empty cells. Cell (x, y) is bit x * gridSize + y.
+ *
+ * Game keeps this in sync with gamePieces, so hot loops (win detection, AI,
+ * drawing) can read a few longs instead of chasing a GamePiece per cell.
+ * gamePieces remains the public view for older code.
+ **/
+public class BitBoard {
+    private final int gridSize;
+    private final int cells;
+    private final long[] team1;
+    private final long[] team2;
+    private final long[] empty;
+    private int emptyCount;
+
+    public BitBoard(int gridSize) {
+        this.gridSize = gridSize;
+        this.cells = gridSize * gridSize;
+
+        int words = (cells + 63) >>> 6;
+        team1 = new long[words];
+        team2 = new long[words];
+        empty = new long[words];
+        clear();
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public int index(int x, int y) {
+        return x * gridSize + y;
+    }
+
+    /**
+     * Empties every cell
+     * */
+    public void clear() {
+        for(int i = 0; i < empty.length; i++) {
+            team1[i] = 0;
+            team2[i] = 0;
+            empty[i] = -1L;
+        }
+        // Don't mark the padding bits in the last word as empty cells
+        if((cells & 63) != 0) empty[empty.length - 1] = (1L << (cells & 63)) - 1;
+        emptyCount = cells;
+    }
+
+    public void setTeam(int x, int y, byte team) {
+        setTeam(index(x, y), team);
+    }
+
+    public void setTeam(int index, byte team) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+
+        if((empty[word] & bit) != 0) emptyCount--;
+        team1[word] &= ~bit;
+        team2[word] &= ~bit;
+        empty[word] &= ~bit;
+
+        if(team == 1) team1[word] |= bit;
+        else if(team == 2) team2[word] |= bit;
+        else {
+            empty[word] |= bit;
+            emptyCount++;
+        }
+    }
+
+    public byte getTeam(int x, int y) {
+        return getTeam(index(x, y));
+    }
+
+    public byte getTeam(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if((team1[word] & bit) != 0) return 1;
+        if((team2[word] & bit) != 0) return 2;
+        return 0;
+    }
+
+    public boolean isEmpty(int x, int y) {
+        int index = index(x, y);
+        return (empty[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    public boolean isFull() {
+        return emptyCount == 0;
+    }
+
+    /**
+     * Returns the number of stones the team has on the board
+     * */
+    public int getStoneCount(byte team) {
+        long[] plane = team == 1 ? team1 : team2;
+        int count = 0;
+        for(long word : plane) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the live bits for a team (1 or 2), or the empty cells (0). Do not
+     * modify the array.
+     * */
+    public long[] getPlane(byte team) {
+        if(team == 1) return team1;
+        if(team == 2) return team2;
+        return empty;
+    }
+
+    /**
+     * Overwrites this board with another of the same size
+     * */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.team1, 0, team1, 0, team1.length);
+        System.arraycopy(other.team2, 0, team2, 0, team2.length);
+        System.arraycopy(other.empty, 0, empty, 0, empty.length);
+        emptyCount = other.emptyCount;
+    }
+
+    /**
+     * Overwrites this board with the teams in gamePieces
+     * */
+    public void copyFrom(GamePiece[][] gamePieces) {
+        clear();
+        for(int x = 0; x < gridSize; x++) {
+            for(int y = 0; y < gridSize; y++) {
+                byte team = gamePieces[x][y].getTeam();
+                if(team != 0) setTeam(x, y, team);
+            }
+        }
+    }
+}
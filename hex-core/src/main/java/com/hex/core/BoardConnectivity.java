@@ -0,0 +1,240 @@
+package com.hex.core;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which stones are connected with a disjoint-set forest. Each team has
+ * two virtual nodes, one for each of the edges it's trying to join, so a win
+ * is a single find() comparison instead of a flood fill of the board.
+ *
+ * Unions are by size, without path compression, so every union writes just
+ * two entries and a find is O(log n). Those writes are logged, so taking back
+ * the last stone placed is as cheap as placing it: the log is popped back to
+ * where that stone started. Removing any other stone, or recoloring one
+ * (swap), marks the forest stale and it's rebuilt from the board the next
+ * time it's queried.
+ **/
+public class BoardConnectivity {
+    private final BitBoard board;
+    private final BoardTopology topology;
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+    private final int[] parent;
+    private final int[] size;
+    private boolean stale;
+
+    // Every parent and size write as (index, old value) pairs. Sizes are
+    // logged at index + parent.length.
+    private int[] log = new int[64];
+    private int logSize;
+    // For each stone added since the last rebuild, its cell and where its
+    // writes start in the log
+    private int[] added = new int[32];
+    private int addedCount;
+
+    // Scratch space for getWinningPath, reused between calls
+    private int[] queue;
+    private int[] from;
+    private int[] visited;
+    private int visitStamp;
+
+    // Virtual edge nodes. Team 1 connects x == 0 to x == gridSize - 1, team 2
+    // connects y == 0 to y == gridSize - 1.
+    private final int team1Start;
+    private final int team1End;
+    private final int team2Start;
+    private final int team2End;
+
+    public BoardConnectivity(BitBoard board) {
+        this.board = board;
+        this.topology = BoardTopology.get(board.getGridSize());
+        this.neighbourStart = topology.getNeighbourStart();
+        this.neighbours = topology.getNeighbours();
+
+        int cells = topology.getCellCount();
+        team1Start = cells;
+        team1End = cells + 1;
+        team2Start = cells + 2;
+        team2End = cells + 3;
+
+        parent = new int[cells + 4];
+        size = new int[cells + 4];
+        clear();
+    }
+
+    /**
+     * Forgets every stone. Call when the board is wiped.
+     * */
+    public synchronized void clear() {
+        for(int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        stale = false;
+        logSize = 0;
+        addedCount = 0;
+    }
+
+    /**
+     * Joins a freshly placed stone with its neighbours of the same team.
+     * */
+    public synchronized void add(int x, int y, byte team) {
+        if(stale) return;
+        int cell = topology.index(x, y);
+        if(addedCount == added.length) added = Arrays.copyOf(added, addedCount * 2);
+        added[addedCount++] = cell;
+        added[addedCount++] = logSize;
+        join(cell, team);
+    }
+
+    /**
+     * A stone was removed. If it's the last one added, its unions are taken
+     * back. Otherwise the forest is rebuilt lazily.
+     * */
+    public synchronized void remove(int x, int y) {
+        if(stale) return;
+        if(addedCount == 0 || added[addedCount - 2] != topology.index(x, y)) {
+            stale = true;
+            return;
+        }
+        int start = added[addedCount - 1];
+        addedCount -= 2;
+        while(logSize > start) {
+            logSize -= 2;
+            int index = log[logSize];
+            if(index < parent.length) parent[index] = log[logSize + 1];
+            else size[index - parent.length] = log[logSize + 1];
+        }
+    }
+
+    /**
+     * A stone was removed or changed team. The forest is rebuilt lazily.
+     * */
+    public synchronized void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns true if the team's stones join its two edges
+     * */
+    public synchronized boolean isConnected(byte team) {
+        if(stale) rebuild();
+        if(team == 1) return find(team1Start) == find(team1End);
+        if(team == 2) return find(team2Start) == find(team2End);
+        return false;
+    }
+
+    /**
+     * Returns the shortest chain of the team's stones joining its edges as
+     * cell indices (x * gridSize + y), ordered from the x == 0 or y == 0
+     * edge. Returns an empty array if the team hasn't won.
+     * */
+    public synchronized int[] getWinningPath(byte team) {
+        if(!isConnected(team)) return new int[0];
+
+        int cells = topology.getCellCount();
+        if(queue == null) {
+            queue = new int[cells];
+            from = new int[cells];
+            visited = new int[cells];
+        }
+        if(++visitStamp == 0) {
+            // Wrapped around, so old stamps could look current again
+            Arrays.fill(visited, 0);
+            visitStamp = 1;
+        }
+
+        // Breadth first search from the start edge, only through stones in
+        // the winning set
+        int root = find(team == 1 ? team1Start : team2Start);
+        int end = BoardTopology.endEdge(team);
+        int head = 0;
+        int tail = 0;
+        for(int cell : topology.getEdgeCells(BoardTopology.startEdge(team))) {
+            if(board.getTeam(cell) == team && find(cell) == root) {
+                visited[cell] = visitStamp;
+                from[cell] = -1;
+                queue[tail++] = cell;
+            }
+        }
+
+        while(head < tail) {
+            int cell = queue[head++];
+
+            if(topology.isOnEdge(cell, end)) {
+                int length = 0;
+                for(int c = cell; c != -1; c = from[c]) {
+                    length++;
+                }
+                int[] path = new int[length];
+                for(int c = cell; c != -1; c = from[c]) {
+                    path[--length] = c;
+                }
+                return path;
+            }
+
+            for(int i = neighbourStart[cell]; i < neighbourStart[cell + 1]; i++) {
+                int neighbour = neighbours[i];
+                if(visited[neighbour] == visitStamp || board.getTeam(neighbour) != team) continue;
+
+                visited[neighbour] = visitStamp;
+                from[neighbour] = cell;
+                queue[tail++] = neighbour;
+            }
+        }
+        return new int[0];
+    }
+
+    private void rebuild() {
+        clear();
+        for(int cell = 0; cell < topology.getCellCount(); cell++) {
+            byte team = board.getTeam(cell);
+            if(team != 0) join(cell, team);
+        }
+        // The stones went in by cell, not in the order they were played, so
+        // there's nothing to take back
+        logSize = 0;
+    }
+
+    private void join(int cell, byte team) {
+        int edges = topology.getEdges(cell);
+        if(team == 1) {
+            if((edges & (1 << BoardTopology.TEAM1_START)) != 0) union(cell, team1Start);
+            if((edges & (1 << BoardTopology.TEAM1_END)) != 0) union(cell, team1End);
+        }
+        else if(team == 2) {
+            if((edges & (1 << BoardTopology.TEAM2_START)) != 0) union(cell, team2Start);
+            if((edges & (1 << BoardTopology.TEAM2_END)) != 0) union(cell, team2End);
+        }
+
+        for(int i = neighbourStart[cell]; i < neighbourStart[cell + 1]; i++) {
+            if(board.getTeam(neighbours[i]) == team) union(cell, neighbours[i]);
+        }
+    }
+
+    private int find(int node) {
+        while(parent[node] != node) {
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if(rootA == rootB) return;
+
+        if(size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        if(logSize + 4 > log.length) log = Arrays.copyOf(log, log.length * 2);
+        log[logSize++] = rootB;
+        log[logSize++] = parent[rootB];
+        log[logSize++] = rootA + parent.length;
+        log[logSize++] = size[rootA];
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+}
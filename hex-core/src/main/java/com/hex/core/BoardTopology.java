@@ -0,0 +1,251 @@
+package com.hex.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed adjacency for one board size. Neighbours, edges and bridges are
+ * worked out once per size and shared by everything that walks the board, so
+ * hot loops read flat arrays instead of bounds checking offsets.
+ *
+ * Cells are indexed x * gridSize + y, like BitBoard. The arrays returned here
+ * are shared between every caller. Do not modify them.
+ **/
+public class BoardTopology {
+    /**
+     * The six directions in order around a cell. Directions d and d + 1 (mod
+     * 6) are adjacent, and d + 3 is opposite d.
+     * */
+    public static final int[] DIRECTION_X = { 1, 0, -1, -1, 0, 1 };
+    public static final int[] DIRECTION_Y = { 0, 1, 1, 0, -1, -1 };
+    public static final int DIRECTIONS = 6;
+
+    /**
+     * Edges. Team 1 connects x == 0 to x == gridSize - 1, team 2 connects y ==
+     * 0 to y == gridSize - 1. getEdges() returns a mask of 1 << edge.
+     * */
+    public static final int TEAM1_START = 0;
+    public static final int TEAM1_END = 1;
+    public static final int TEAM2_START = 2;
+    public static final int TEAM2_END = 3;
+
+    private static final Map<Integer, BoardTopology> CACHE = new HashMap<Integer, BoardTopology>();
+
+    private final int gridSize;
+    private final int cells;
+
+    // Neighbour by direction, -1 off the board
+    private final int[] steps;
+
+    // Neighbours of cell c are neighbours[neighbourStart[c]] up to
+    // neighbours[neighbourStart[c + 1]]
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+
+    // Bridge b from cell c (bridgeStart[c] <= b < bridgeStart[c + 1]) ends on
+    // bridges[b] and is held by the two empty cells bridgeCarriers[2 * b] and
+    // bridgeCarriers[2 * b + 1]
+    private final int[] bridgeStart;
+    private final int[] bridges;
+    private final int[] bridgeCarriers;
+
+    private final byte[] edges;
+    private final int[][] edgeCells;
+    private final long[][] edgePlanes;
+
+    /**
+     * Returns the topology for a board size, building it the first time
+     * */
+    public static synchronized BoardTopology get(int gridSize) {
+        BoardTopology topology = CACHE.get(gridSize);
+        if(topology == null) {
+            topology = new BoardTopology(gridSize);
+            CACHE.put(gridSize, topology);
+        }
+        return topology;
+    }
+
+    /**
+     * The edge a team starts from
+     * */
+    public static int startEdge(byte team) {
+        return team == 1 ? TEAM1_START : TEAM2_START;
+    }
+
+    /**
+     * The edge a team is trying to reach
+     * */
+    public static int endEdge(byte team) {
+        return team == 1 ? TEAM1_END : TEAM2_END;
+    }
+
+    private BoardTopology(int gridSize) {
+        this.gridSize = gridSize;
+        this.cells = gridSize * gridSize;
+
+        steps = new int[cells * DIRECTIONS];
+        neighbourStart = new int[cells + 1];
+        bridgeStart = new int[cells + 1];
+        edges = new byte[cells];
+
+        int neighbourCount = 0;
+        int bridgeCount = 0;
+        for(int x = 0; x < gridSize; x++) {
+            for(int y = 0; y < gridSize; y++) {
+                int cell = index(x, y);
+                for(int d = 0; d < DIRECTIONS; d++) {
+                    int step = offset(x, y, DIRECTION_X[d], DIRECTION_Y[d]);
+                    steps[cell * DIRECTIONS + d] = step;
+                    if(step != -1) neighbourCount++;
+                    if(bridge(x, y, d) != -1) bridgeCount++;
+                }
+                if(x == 0) edges[cell] |= 1 << TEAM1_START;
+                if(x == gridSize - 1) edges[cell] |= 1 << TEAM1_END;
+                if(y == 0) edges[cell] |= 1 << TEAM2_START;
+                if(y == gridSize - 1) edges[cell] |= 1 << TEAM2_END;
+            }
+        }
+
+        neighbours = new int[neighbourCount];
+        bridges = new int[bridgeCount];
+        bridgeCarriers = new int[bridgeCount * 2];
+        int n = 0;
+        int b = 0;
+        for(int cell = 0; cell < cells; cell++) {
+            neighbourStart[cell] = n;
+            bridgeStart[cell] = b;
+            for(int d = 0; d < DIRECTIONS; d++) {
+                int step = steps[cell * DIRECTIONS + d];
+                if(step != -1) neighbours[n++] = step;
+
+                int target = bridge(cell / gridSize, cell % gridSize, d);
+                if(target != -1) {
+                    bridges[b] = target;
+                    bridgeCarriers[2 * b] = step;
+                    bridgeCarriers[2 * b + 1] = steps[cell * DIRECTIONS + (d + 1) % DIRECTIONS];
+                    b++;
+                }
+            }
+        }
+        neighbourStart[cells] = n;
+        bridgeStart[cells] = b;
+
+        edgeCells = new int[4][gridSize];
+        edgePlanes = new long[4][(cells + 63) >>> 6];
+        for(int i = 0; i < gridSize; i++) {
+            addEdgeCell(TEAM1_START, i, index(0, i));
+            addEdgeCell(TEAM1_END, i, index(gridSize - 1, i));
+            addEdgeCell(TEAM2_START, i, index(i, 0));
+            addEdgeCell(TEAM2_END, i, index(i, gridSize - 1));
+        }
+    }
+
+    private void addEdgeCell(int edge, int i, int cell) {
+        edgeCells[edge][i] = cell;
+        edgePlanes[edge][cell >>> 6] |= 1L << cell;
+    }
+
+    private int offset(int x, int y, int dx, int dy) {
+        x += dx;
+        y += dy;
+        if(x < 0 || y < 0 || x >= gridSize || y >= gridSize) return -1;
+        return index(x, y);
+    }
+
+    // The bridge between directions d and d + 1, if it and both its carriers
+    // are on the board
+    private int bridge(int x, int y, int d) {
+        int e = (d + 1) % DIRECTIONS;
+        if(offset(x, y, DIRECTION_X[d], DIRECTION_Y[d]) == -1) return -1;
+        if(offset(x, y, DIRECTION_X[e], DIRECTION_Y[e]) == -1) return -1;
+        return offset(x, y, DIRECTION_X[d] + DIRECTION_X[e], DIRECTION_Y[d] + DIRECTION_Y[e]);
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public int getCellCount() {
+        return cells;
+    }
+
+    public int index(int x, int y) {
+        return x * gridSize + y;
+    }
+
+    public int getX(int cell) {
+        return cell / gridSize;
+    }
+
+    public int getY(int cell) {
+        return cell % gridSize;
+    }
+
+    /**
+     * Returns the neighbour in a direction (see DIRECTION_X), or -1 if it's
+     * off the board
+     * */
+    public int getNeighbour(int cell, int direction) {
+        return steps[cell * DIRECTIONS + direction];
+    }
+
+    /**
+     * Offsets into getNeighbours(), one per cell plus a final end marker
+     * */
+    public int[] getNeighbourStart() {
+        return neighbourStart;
+    }
+
+    /**
+     * Every cell's on-board neighbours, packed one after another
+     * */
+    public int[] getNeighbours() {
+        return neighbours;
+    }
+
+    /**
+     * Offsets into getBridges(), one per cell plus a final end marker
+     * */
+    public int[] getBridgeStart() {
+        return bridgeStart;
+    }
+
+    /**
+     * The far end of every bridge, packed one after another
+     * */
+    public int[] getBridges() {
+        return bridges;
+    }
+
+    /**
+     * The two cells between each bridge's ends, at [2 * b] and [2 * b + 1]
+     * */
+    public int[] getBridgeCarriers() {
+        return bridgeCarriers;
+    }
+
+    /**
+     * Returns the edges a cell touches as a mask of 1 << edge
+     * */
+    public int getEdges(int cell) {
+        return edges[cell];
+    }
+
+    public boolean isOnEdge(int cell, int edge) {
+        return (edges[cell] & (1 << edge)) != 0;
+    }
+
+    /**
+     * The cells along an edge
+     * */
+    public int[] getEdgeCells(int edge) {
+        return edgeCells[edge];
+    }
+
+    /**
+     * The cells along an edge as bits, laid out like BitBoard.getPlane()
+     * */
+    public long[] getEdgePlane(int edge) {
+        return edgePlanes[edge];
+    }
+}
@@ -0,0 +1,327 @@
+package com.hex.core;
+
+import java.util.Arrays;
+
+/**
+ * Depth-first proof-number search, after Nagai. Solves a position exactly:
+ * whether the side to move wins with perfect play, and how.
+ *
+ * Each position has a proof number, how many more positions must be solved
+ * to show the side to move wins, and a disproof number, how many to show it
+ * loses. The search always heads for the most proving line, and only comes
+ * back up when the line costs more than its siblings, so it keeps to a path
+ * on the stack and a table of numbers rather than a tree.
+ *
+ * Positions are keyed by Zobrist hash, wins are found with a
+ * BoardConnectivity, moves are listed from an EmptyCells, and the table is a
+ * fixed size. It's only practical when
+ * few cells are left empty. Give it a node or time limit and it will say it
+ * doesn't know.
+ **/
+public class DfpnSolver {
+    public static final int DEFAULT_TABLE_BYTES = 4 << 20;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    // Mixed into keys so the side to move is part of the position
+    private static final long TEAM_2_TO_MOVE = 0x510E527FADE682D1L;
+    // How many nodes between looks at the clock
+    private static final int CLOCK_INTERVAL = 1024;
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * The result of a solve, for the side to move
+     * */
+    public enum Status {
+        /** The side to move wins. getBestMove() says how. **/
+        WIN,
+        /** The side to move loses whatever it does **/
+        LOSS,
+        /** Ran out of nodes or time first **/
+        UNKNOWN
+    }
+
+    private final int gridSize;
+    private final int cells;
+    private final BitBoard board;
+    private final BoardConnectivity connectivity;
+    private final EmptyCells empty;
+    private final long[] keys;
+    private final int mask;
+    private final long[] tableKeys;
+    private final int[] tableProof;
+    private final int[] tableDisproof;
+    // Each depth's children and their numbers, made as the search first
+    // gets that deep
+    private int[][] depthChildren = new int[0][];
+    private int[][] depthProof = new int[0][];
+    private int[][] depthDisproof = new int[0][];
+
+    private long hash;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean aborted;
+    private int bestMove = -1;
+
+    public DfpnSolver(int gridSize) {
+        this(gridSize, DEFAULT_TABLE_BYTES);
+    }
+
+    /**
+     * @param tableBytes
+     *            Memory for the table of proof and disproof numbers
+     * */
+    public DfpnSolver(int gridSize, int tableBytes) {
+        this.gridSize = gridSize;
+        this.cells = gridSize * gridSize;
+        this.board = new BitBoard(gridSize);
+        this.connectivity = new BoardConnectivity(board);
+        this.empty = new EmptyCells(gridSize);
+        this.keys = Zobrist.getKeys(gridSize);
+        int size = Integer.highestOneBit(Math.max(2, tableBytes / ENTRY_BYTES));
+        this.mask = size - 1;
+        this.tableKeys = new long[size];
+        this.tableProof = new int[size];
+        this.tableDisproof = new int[size];
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Returns how many nodes the last solve visited
+     * */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the winning cell, x * gridSize + y, if the last solve was a
+     * WIN. Otherwise -1.
+     * */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Forgets everything solved so far
+     * */
+    public void clear() {
+        for(int i = 0; i <= mask; i++) {
+            tableKeys[i] = 0;
+        }
+    }
+
+    /**
+     * Makes the solve in progress, on another thread, give up at its next
+     * node. Later solves give up straight away too, until resetAbort() is
+     * called, so an abort that comes just before a solve starts isn't lost.
+     * */
+    public void abort() {
+        aborted = true;
+    }
+
+    /**
+     * Lets solves run again after abort()
+     * */
+    public void resetAbort() {
+        aborted = false;
+    }
+
+    /**
+     * Solves position with team to move. The table is kept between solves,
+     * so solving the positions of one game in turn reuses earlier work.
+     *
+     * @param maxNodes
+     *            Give up after this many nodes
+     * @param maxMillis
+     *            Give up after this long
+     * */
+    public Status solve(BitBoard position, byte team, long maxNodes, long maxMillis) {
+        board.copyFrom(position);
+        connectivity.invalidate();
+        empty.fill();
+        for(int cell = 0; cell < cells; cell++) {
+            if(board.getTeam(cell) != 0) empty.remove(cell);
+        }
+        hash = Zobrist.hash(board);
+        nodes = 0;
+        this.maxNodes = maxNodes;
+        deadline = System.currentTimeMillis() + maxMillis;
+        stopped = false;
+        bestMove = -1;
+
+        byte other = team == 1 ? (byte) 2 : (byte) 1;
+        if(connectivity.isConnected(team)) return Status.WIN;
+        if(connectivity.isConnected(other)) return Status.LOSS;
+
+        search(team, 0, INFINITY - 1, INFINITY - 1);
+        long key = key(team);
+        int entry = find(key);
+        if(entry == -1) return Status.UNKNOWN;
+        if(tableProof[entry] == 0) {
+            bestMove = winningMove(team);
+            return Status.WIN;
+        }
+        if(tableDisproof[entry] == 0) return Status.LOSS;
+        return Status.UNKNOWN;
+    }
+
+    /**
+     * Searches the current position, team to move and depth moves below the
+     * root, until its proof number reaches proofLimit or its disproof number
+     * reaches disproofLimit. Returns the numbers it ends with, proof << 32 |
+     * disproof, and leaves them in the table.
+     * */
+    private long search(byte team, int depth, int proofLimit, int disproofLimit) {
+        long key = key(team);
+        byte other = team == 1 ? (byte) 2 : (byte) 1;
+        if(connectivity.isConnected(other)) {
+            store(key, INFINITY, 0);
+            return numbers(INFINITY, 0);
+        }
+
+        // The children's numbers are kept here as well as in the table, so a
+        // child's result can't be lost to a collision before it's used
+        int count = children(depth);
+        int[] children = depthChildren[depth];
+        int[] childProof = depthProof[depth];
+        int[] childDisproof = depthDisproof[depth];
+        for(int i = 0; i < count; i++) {
+            int entry = find(childKey(key, children[i], team));
+            childProof[i] = entry == -1 ? 1 : tableProof[entry];
+            childDisproof[i] = entry == -1 ? 1 : tableDisproof[entry];
+        }
+
+        while(true) {
+            // Negamax form: our proof number is the least of the children's
+            // disproof numbers, and our disproof number the sum of their
+            // proof numbers
+            int proof = INFINITY;
+            int disproof = 0;
+            int best = -1;
+            int secondDisproof = INFINITY;
+            for(int i = 0; i < count; i++) {
+                proof = Math.min(proof, childDisproof[i]);
+                disproof = Math.min(INFINITY, disproof + childProof[i]);
+                if(best == -1 || childDisproof[i] < childDisproof[best]) {
+                    if(best != -1) secondDisproof = childDisproof[best];
+                    best = i;
+                }
+                else if(childDisproof[i] < secondDisproof) {
+                    secondDisproof = childDisproof[i];
+                }
+            }
+
+            if(proof >= proofLimit || disproof >= disproofLimit || stop()) {
+                store(key, proof, disproof);
+                return numbers(proof, disproof);
+            }
+            nodes++;
+
+            // Follow the most proving child until it stops being the best
+            int cell = children[best];
+            play(cell, team);
+            long result = search(other, depth + 1, Math.min(INFINITY, disproofLimit - disproof + childProof[best]), Math.min(proofLimit, secondDisproof + 1));
+            undo(cell);
+            childProof[best] = (int) (result >>> 32);
+            childDisproof[best] = (int) result;
+        }
+    }
+
+    private static long numbers(int proof, int disproof) {
+        return (long) proof << 32 | disproof;
+    }
+
+    /**
+     * Returns a move to a position the table says the opponent loses
+     * */
+    private int winningMove(byte team) {
+        long key = key(team);
+        int count = children(0);
+        for(int i = 0; i < count; i++) {
+            int entry = find(childKey(key, depthChildren[0][i], team));
+            if(entry != -1 && tableDisproof[entry] == 0) return depthChildren[0][i];
+        }
+        return -1;
+    }
+
+    private void play(int cell, byte team) {
+        board.setTeam(cell, team);
+        connectivity.add(cell / gridSize, cell % gridSize, team);
+        hash ^= Zobrist.getKey(keys, cell, team);
+        empty.remove(cell);
+    }
+
+    private void undo(int cell) {
+        hash ^= Zobrist.getKey(keys, cell, board.getTeam(cell));
+        board.setTeam(cell, (byte) 0);
+        connectivity.remove(cell / gridSize, cell % gridSize);
+        empty.add(cell);
+    }
+
+    /**
+     * Fills depth's buffer with the empty cells and returns how many there
+     * are. Every position at a depth has the same number empty, so the
+     * buffers only grow when a solve starts from a less full board.
+     * */
+    private int children(int depth) {
+        if(depth == depthChildren.length) {
+            depthChildren = Arrays.copyOf(depthChildren, depth + 1);
+            depthProof = Arrays.copyOf(depthProof, depth + 1);
+            depthDisproof = Arrays.copyOf(depthDisproof, depth + 1);
+        }
+        if(depthChildren[depth] == null || depthChildren[depth].length < empty.size()) {
+            depthChildren[depth] = new int[empty.size()];
+            depthProof[depth] = new int[empty.size()];
+            depthDisproof[depth] = new int[empty.size()];
+        }
+        return empty.toArray(depthChildren[depth]);
+    }
+
+    private long key(byte team) {
+        return team == 2 ? hash ^ TEAM_2_TO_MOVE : hash;
+    }
+
+    /**
+     * The key after team plays cell in the position with key
+     * */
+    private long childKey(long key, int cell, byte team) {
+        return key ^ Zobrist.getKey(keys, cell, team) ^ TEAM_2_TO_MOVE;
+    }
+
+    private boolean stop() {
+        if(!stopped && (aborted || nodes >= maxNodes || nodes % CLOCK_INTERVAL == 0 && System.currentTimeMillis() > deadline)) stopped = true;
+        return stopped;
+    }
+
+    /**
+     * Returns the key's slot, or -1. A key can be in either slot of its pair.
+     * */
+    private int find(long key) {
+        int index = (int) key & mask;
+        if(tableKeys[index] == key) return index;
+        if(tableKeys[index ^ 1] == key) return index ^ 1;
+        return -1;
+    }
+
+    /**
+     * Stores a position's numbers, in preference to the other position in its
+     * pair of slots if that one's only partly searched
+     * */
+    private void store(long key, int proof, int disproof) {
+        int index = find(key);
+        if(index == -1) {
+            index = (int) key & mask;
+            if(tableKeys[index] != 0 && solved(index)) index ^= 1;
+        }
+        tableKeys[index] = key;
+        tableProof[index] = proof;
+        tableDisproof[index] = disproof;
+    }
+
+    private boolean solved(int index) {
+        return tableProof[index] == 0 || tableDisproof[index] == 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.hex.core;
+
+import java.util.Random;
+
+/**
+ * The set of empty cells, stored densely so moves can be listed or picked at
+ * random without scanning the board. A second array maps each cell to its
+ * slot, so adding and removing are O(1): a removed cell's slot is filled by
+ * the last one.
+ * 
+ * Cells are indexed x * gridSize + y, like BitBoard.
+ **/
+public class EmptyCells {
+    private final int[] cells;
+    private final int[] slots;
+    private int size;
+
+    /**
+     * Creates a set holding every cell of the board
+     * */
+    public EmptyCells(int gridSize) {
+        cells = new int[gridSize * gridSize];
+        slots = new int[gridSize * gridSize];
+        fill();
+    }
+
+    /**
+     * Marks every cell as empty
+     * */
+    public void fill() {
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+            slots[i] = i;
+        }
+        size = cells.length;
+    }
+
+    /**
+     * Makes this set the same as other, which must be for the same board size
+     * */
+    public void copyFrom(EmptyCells other) {
+        System.arraycopy(other.cells, 0, cells, 0, other.size);
+        System.arraycopy(other.slots, 0, slots, 0, slots.length);
+        size = other.size;
+    }
+
+    public void add(int cell) {
+        if(slots[cell] >= 0) return;
+        cells[size] = cell;
+        slots[cell] = size;
+        size++;
+    }
+
+    public void remove(int cell) {
+        int slot = slots[cell];
+        if(slot < 0) return;
+
+        int last = cells[--size];
+        cells[slot] = last;
+        slots[last] = slot;
+        slots[cell] = -1;
+    }
+
+    public boolean contains(int cell) {
+        return slots[cell] >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the empty cell in a slot. Slots are 0 to size() - 1, in no
+     * particular order, and shift as cells are removed.
+     * */
+    public int get(int slot) {
+        return cells[slot];
+    }
+
+    /**
+     * Returns an empty cell chosen uniformly at random, or -1 if the board is
+     * full
+     * */
+    public int random(Random random) {
+        if(size == 0) return -1;
+        return cells[random.nextInt(size)];
+    }
+
+    /**
+     * Copies the empty cells into a new array
+     * */
+    public int[] toArray() {
+        int[] copy = new int[size];
+        toArray(copy);
+        return copy;
+    }
+
+    /**
+     * Copies the empty cells into the start of array, which must have room
+     * for them all, and returns how many there are
+     * */
+    public int toArray(int[] array) {
+        System.arraycopy(cells, 0, array, 0, size);
+        return size;
+    }
+}
@@ -0,0 +1,496 @@
+package com.hex.core;
+
+import java.io.Serializable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class Game implements Runnable, Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final boolean DEBUG = true;
+
+    private MoveList moveList;
+    private int currentPlayer;
+    private PlayingEntity player1;
+    private PlayingEntity player2;
+    public GameOptions gameOptions;
+    private long gameStart;
+    private long gameEnd;
+
+    public final transient GamePiece[][] gamePieces;
+    private final transient BoardTopology topology;
+    private final transient BitBoard board;
+    private final transient EmptyCells emptyCells;
+    private final transient BoardConnectivity connectivity;
+    private final transient long[] zobristKeys;
+    private transient long positionHash;
+    private transient GameListener gameListener;
+    public transient boolean replayRunning = false;
+    private transient boolean gameOver = false;
+    private transient boolean gameRunning = true;
+    private transient long moveStart;
+    private transient PlayingEntity winner;
+
+    private Thread gameThread;
+
+    public Game(GameOptions gameOptions, PlayingEntity player1, PlayingEntity player2) {
+        this.gameOptions = gameOptions;
+        this.player1 = player1;
+        this.player2 = player2;
+
+        gamePieces = new GamePiece[gameOptions.gridSize][gameOptions.gridSize];
+        for(int i = 0; i < gameOptions.gridSize; i++) {
+            for(int j = 0; j < gameOptions.gridSize; j++) {
+                gamePieces[i][j] = new GamePiece(i, j);
+            }
+        }
+        topology = BoardTopology.get(gameOptions.gridSize);
+        board = new BitBoard(gameOptions.gridSize);
+        emptyCells = new EmptyCells(gameOptions.gridSize);
+        connectivity = new BoardConnectivity(board);
+        zobristKeys = Zobrist.getKeys(gameOptions.gridSize);
+
+        setMoveList(new MoveList());
+        currentPlayer = 1;
+        gameRunning = true;
+        setGameOver(false);
+    }
+
+    public void start() {
+        if(getGameListener() != null) getGameListener().onStart();
+        setGameOver(false);
+        gameRunning = true;
+        winner = null;
+        getPlayer1().setTime(gameOptions.timer.totalTime);
+        getPlayer2().setTime(gameOptions.timer.totalTime);
+        gameOptions.timer.start(this);
+        setGameThread(new Thread(this, "runningGame"));
+        getGameThread().start();
+    }
+
+    public void stop() {
+        if(getGameListener() != null) getGameListener().onStop();
+        gameRunning = false;
+        gameOptions.timer.stop();
+        getPlayer1().quit();
+        getPlayer2().quit();
+        setGameOver(true);
+    }
+
+    @Override
+    public void run() {
+        PlayingEntity player = null;
+        gameStart = System.currentTimeMillis();
+        // tell the players of a new game
+        player1.startGame();
+        player2.startGame();
+        // Loop the game
+        if(getGameListener() != null) getGameListener().onTurn(getPlayer1());
+        while(gameRunning) {
+            if(!checkForWinner()) {
+                setMoveStart(System.currentTimeMillis());
+                player = getCurrentPlayer();
+                if(getGameListener() != null) getGameListener().onTurn(player);
+
+                // Let the player make its move
+                player.getPlayerTurn(this);
+
+                // Update the timer
+                if(gameOptions.timer.type == Timer.PER_MOVE) {
+                    gameOptions.timer.startTime = System.currentTimeMillis();
+                    player.setTime(gameOptions.timer.totalTime);
+                }
+                player.setTime(player.getTime() + gameOptions.timer.additionalTime);
+            }
+
+            incrementCurrentPlayer();
+        }
+    }
+
+    boolean checkForWinner() {
+        if(GameAction.checkWinPlayer(1, this)) {
+            winner = getPlayer1();
+        }
+        else if(GameAction.checkWinPlayer(2, this)) {
+            winner = getPlayer2();
+        }
+
+        if(winner != null) {
+            gameRunning = false;
+            gameEnd = System.currentTimeMillis();
+            setGameOver(true);
+            winner.win();
+            getOtherPlayer(winner).lose(this);
+            if(gameListener != null) gameListener.onWin(winner);
+        }
+
+        return isGameOver();
+    }
+
+    public void clearBoard() {
+        clearPieces();
+        gameListener.onClear();
+    }
+
+    private void clearPieces() {
+        for(int i = 0; i < gameOptions.gridSize; i++) {
+            for(int j = 0; j < gameOptions.gridSize; j++) {
+                gamePieces[i][j] = new GamePiece(i, j);
+            }
+        }
+        board.clear();
+        emptyCells.fill();
+        connectivity.clear();
+        positionHash = 0;
+    }
+
+    /**
+     * Sets the move list and places all of its stones in one pass, then
+     * checks for a winner once. Unlike replay(), this runs on the caller's
+     * thread, doesn't call the listener and doesn't tell the players about
+     * the result. Use it to find out how a loaded game ended.
+     * */
+    public void applyMoves(MoveList moves) {
+        clearPieces();
+        setMoveList(moves);
+
+        Move lastMove = null;
+        for(Move m : moves) {
+            gamePieces[m.getX()][m.getY()].setTeam(m.getTeam(), this);
+            lastMove = m;
+        }
+        currentPlayer = lastMove == null ? 1 : lastMove.getTeam() % 2 + 1;
+
+        winner = null;
+        if(connectivity.isConnected((byte) 1)) {
+            winner = getPlayer1();
+        }
+        else if(connectivity.isConnected((byte) 2)) {
+            winner = getPlayer2();
+        }
+
+        if(winner != null) {
+            GamePiece.markWinningPath(winner.getTeam(), this);
+            gameRunning = false;
+        }
+        setGameOver(winner != null);
+    }
+
+    // Called by GamePiece whenever a stone is placed, removed or swapped
+    void pieceChanged(int x, int y, byte previous, byte team) {
+        if(x < 0) {
+            // A piece that doesn't know where it is. Resync from the board.
+            board.copyFrom(gamePieces);
+            emptyCells.fill();
+            for(int i = 0; i < gameOptions.gridSize * gameOptions.gridSize; i++) {
+                if(board.getTeam(i) != 0) emptyCells.remove(i);
+            }
+            connectivity.invalidate();
+            positionHash = Zobrist.hash(board);
+            return;
+        }
+
+        int index = board.index(x, y);
+        positionHash ^= Zobrist.getKey(zobristKeys, index, previous) ^ Zobrist.getKey(zobristKeys, index, team);
+        board.setTeam(index, team);
+        if(team == 0) {
+            emptyCells.add(index);
+        }
+        else {
+            emptyCells.remove(index);
+        }
+        if(previous == 0) {
+            connectivity.add(x, y, team);
+        }
+        else if(team == 0) {
+            connectivity.remove(x, y);
+        }
+        else {
+            connectivity.invalidate();
+        }
+    }
+
+    /**
+     * Zobrist hash of the stones on the board. Equal positions have equal
+     * hashes across games and runs.
+     * */
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * The empty cells, for listing or sampling legal moves without scanning
+     * the board. Don't modify it; it's kept in sync as stones are placed.
+     * */
+    public EmptyCells getEmptyCells() {
+        return emptyCells;
+    }
+
+    /**
+     * Packed view of the board. Prefer this over gamePieces in loops.
+     * */
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Neighbours, edges and bridges for this board size
+     * */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    public BoardConnectivity getConnectivity() {
+        return connectivity;
+    }
+
+    protected void incrementCurrentPlayer() {
+        currentPlayer = (currentPlayer % 2) + 1;
+    }
+
+    public void setGameListener(GameListener gameListener) {
+        this.gameListener = gameListener;
+    }
+
+    public GameListener getGameListener() {
+        return gameListener;
+    }
+
+    public PlayingEntity getCurrentPlayer() {
+        return GameAction.getPlayer(currentPlayer, this);
+    }
+
+    public PlayingEntity getWaitingPlayer() {
+        return GameAction.getPlayer(currentPlayer % 2 + 1, this);
+    }
+
+    public PlayingEntity getOtherPlayer(PlayingEntity player) {
+        return player.getTeam() == 2 ? getPlayer1() : getPlayer2();
+    }
+
+    public MoveList getMoveList() {
+        return moveList;
+    }
+
+    void setMoveList(MoveList moveList) {
+        this.moveList = moveList;
+    }
+
+    public long getMoveStart() {
+        return moveStart;
+    }
+
+    void setMoveStart(long moveStart) {
+        this.moveStart = moveStart;
+    }
+
+    public PlayingEntity getPlayer1() {
+        return player1;
+    }
+
+    public PlayingEntity getPlayer2() {
+        return player2;
+    }
+
+    public int getMoveNumber() {
+        return moveList.size() + 1; // this list starts at zero but move is move
+                                    // number one
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    private void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
+    public long getGameLength() {
+        if(gameEnd == 0) return System.currentTimeMillis() - gameStart;
+        return gameEnd - gameStart;
+    }
+
+    public long getGameStart() {
+        return gameStart;
+    }
+
+    void setGameStart(long gameStart) {
+        this.gameStart = gameStart;
+    }
+
+    public long getGameEnd() {
+        return gameEnd;
+    }
+
+    public PlayingEntity getWinner() {
+        return winner;
+    }
+
+    public void replay(int time) {
+        clearBoard();
+        new Thread(new Replay(time, this), "replay").start();
+    }
+
+    public void undo(int moveNumber) {
+        if(getMoveNumber() > 1 && moveNumber >= 1 && moveNumber < getMoveNumber()) {
+            // Only a finished game has a winning path to clear
+            if(isGameOver()) GameAction.winFlagReset(this);
+
+            while(getMoveNumber() != moveNumber) {
+                removeLastMove();
+            }
+
+            if(moveNumber % 2 + 1 == getCurrentPlayer().getTeam()) {
+                getCurrentPlayer().endMove();
+            }
+
+            // Reset the game if it's already ended
+            if(isGameOver()) {
+                start();
+            }
+        }
+
+        if(getGameListener() != null) getGameListener().onUndo();
+    }
+
+    /**
+     * Takes the last move off the board and the move list. Only the one cell
+     * changes: undoing a swap gives the stone back to the first player.
+     * */
+    void removeLastMove() {
+        Move lastMove = moveList.getMove();
+        moveList.removeMove();
+        Move previous = moveList.getMove();
+        boolean swap = previous != null && previous.getX() == lastMove.getX() && previous.getY() == lastMove.getY();
+        gamePieces[lastMove.getX()][lastMove.getY()].setTeam(swap ? previous.getTeam() : 0, this);
+    }
+
+    public String save() {
+        Gson gson = new Gson();
+        JsonObject state = new JsonObject();
+        state.add("gameOptions", gson.toJsonTree(gameOptions));
+        state.add("moveList", gson.toJsonTree(moveList));
+        state.addProperty("moveNumber", getMoveNumber());
+        state.addProperty("currentPlayer", currentPlayer);
+        state.addProperty("gameStart", gameStart);
+        state.addProperty("gameEnd", gameEnd);
+        state.addProperty("positionHash", positionHash);
+
+        JsonObject player1State = new JsonObject();
+        player1State.addProperty("type", (player1.getType().equals(Player.AI)) ? ((AI) player1).getAIType() : player1.getType().toString());
+        player1State.addProperty("color", player1.getColor());
+        player1State.addProperty("name", player1.getName());
+
+        JsonObject player2State = new JsonObject();
+        player2State.addProperty("type", (player2.getType().equals(Player.AI)) ? ((AI) player2).getAIType() : player2.getType().toString());
+        player2State.addProperty("color", player2.getColor());
+        player2State.addProperty("name", player2.getName());
+
+        state.add("player1", player1State);
+        state.add("player2", player2State);
+        return gson.toJson(state);
+    }
+
+    public static Game load(String state) {
+        return load(state, new PlayerObject(1), new PlayerObject(2));
+    }
+
+    public static Game load(String state, PlayingEntity player1, PlayingEntity player2) {
+        final Game game;
+        final GameOptions options;
+        final MoveList moves;
+
+        Gson gson = new Gson();
+        JsonObject object = new JsonParser().parse(state).getAsJsonObject();
+        options = gson.fromJson(object.get("gameOptions"), GameOptions.class);
+        moves = gson.fromJson(object.get("moveList"), MoveList.class);
+        player1.setColor(object.get("player1").getAsJsonObject().get("color").getAsInt());
+        player1.setName(object.get("player1").getAsJsonObject().get("name").getAsString());
+        player2.setColor(object.get("player2").getAsJsonObject().get("color").getAsInt());
+        player2.setName(object.get("player2").getAsJsonObject().get("name").getAsString());
+
+        game = new Game(options, player1, player2);
+        int moveNumber = object.get("moveNumber").getAsInt();
+        game.currentPlayer = object.get("currentPlayer").getAsInt();
+        game.gameStart = object.get("gameStart").getAsLong();
+        game.gameEnd = object.get("gameEnd").getAsLong();
+        game.moveList = moves;
+
+        if(moveNumber != game.getMoveNumber()) {
+            System.err.println("error game number missmach");
+            System.err.println("the game has " + game.getMoveNumber() + " but the save file says it shoud have" + moveNumber);
+            if(DEBUG) {
+                throw new TurnMismatchException("Load error " + game.getMoveNumber() + " vs " + moveNumber);
+            }
+        }
+
+        // Older saves don't have a hash. Nothing needs the saved one, since
+        // the hash is worked out again from the moves, so a mismatch is only
+        // reported.
+        if(object.has("positionHash")) {
+            long positionHash = object.get("positionHash").getAsLong();
+            long movesHash = hashMoves(moves, options.gridSize);
+            if(positionHash != movesHash) {
+                System.err.println("error position hash mismatch");
+                System.err.println("the moves hash to " + movesHash + " but the save file says " + positionHash);
+            }
+        }
+
+        return game;
+    }
+
+    /**
+     * The hash of the position the moves lead to, as applyMoves() would leave
+     * getPositionHash(), without touching a game
+     * */
+    private static long hashMoves(MoveList moves, int gridSize) {
+        BitBoard position = new BitBoard(gridSize);
+        for(Move m : moves) {
+            position.setTeam(m.getX(), m.getY(), m.getTeam());
+        }
+        return Zobrist.hash(position);
+    }
+
+    public Thread getGameThread() {
+        return gameThread;
+    }
+
+    public void setGameThread(Thread gameThread) {
+        this.gameThread = gameThread;
+    }
+
+    public static class GameOptions implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public Timer timer;
+        public int gridSize;
+        public boolean swap;
+    }
+
+    public static interface GameListener {
+        public void onWin(PlayingEntity player);
+
+        public void onClear();
+
+        public void onStart();
+
+        public void onStop();
+
+        public void onTurn(PlayingEntity player);
+
+        public void onReplayStart();
+
+        public void onReplayEnd();
+
+        public void onUndo();
+
+        public void startTimer();
+
+        public void displayTime(int minutes, int seconds);
+    }
+
+    public boolean canNewGame() {
+        return(this.player1.supportsNewgame() && this.player2.supportsNewgame());
+
+    }
+}
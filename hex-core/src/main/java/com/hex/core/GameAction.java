@@ -0,0 +1,124 @@
+package com.hex.core;
+
+public class GameAction {
+    public static int LOCAL_GAME = 1;
+    public static int NET_GAME = 2;
+
+    private GameAction() {}
+
+    public static synchronized boolean checkWinPlayer(int team, Game game) {
+        if(team == 1) {
+            if(game.gameOptions.timer.type != 0 && game.getPlayer2().getTime() < 0) return true;
+            if(game.getPlayer2().giveUp()) return true;
+            if(game.getConnectivity().isConnected((byte) 1)) {
+                System.out.println("Player one wins");
+                GamePiece.markWinningPath((byte) 1, game);
+                return true;
+            }
+            return false;
+        }
+        else {
+            if(game.gameOptions.timer.type != 0 && game.getPlayer1().getTime() < 0) return true;
+            if(game.getPlayer1().giveUp()) return true;
+            if(game.getConnectivity().isConnected((byte) 2)) {
+                System.out.println("Player two wins");
+                GamePiece.markWinningPath((byte) 2, game);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static void winFlagReset(Game game) {
+        for(int x = game.gameOptions.gridSize - 1; x >= 0; x--) {
+            for(int y = game.gameOptions.gridSize - 1; y >= 0; y--) {
+                game.gamePieces[x][y].setWinningPath(false);
+            }
+        }
+    }
+
+    public static void setPiece(Point p, Game game) {
+        if(game.getCurrentPlayer() instanceof PlayerObject) ((PlayerObject) game.getCurrentPlayer()).setMove(game, p);
+    }
+
+    private static void setGamePiece(byte t, int x, int y, Game game) {
+        game.getMoveList().makeMove(x, y, t, System.currentTimeMillis() - game.getMoveStart(), game.getMoveNumber());
+        game.gamePieces[x][y].setTeam(t, game);
+
+    }
+
+    public static boolean makeMove(PlayingEntity player, Point hex, Game game) {
+        if(game.replayRunning || player == null || hex.x < 0 && hex.y < 0) return false;
+        else if(game.gamePieces[hex.x][hex.y].getTeam() == 0) {
+            setGamePiece(player.getTeam(), hex.x, hex.y, game);
+            return true;
+        }
+        else if(game.getMoveNumber() == 2 && game.gamePieces[hex.x][hex.y].getTeam() == 1) {
+            // Swap rule
+            if(game.gameOptions.swap) {
+                setGamePiece(player.getTeam(), hex.x, hex.y, game);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void undo(int gameLocation, Game game) {
+        if(game.getMoveNumber() > 1 && game.getPlayer1().supportsUndo(game) && game.getPlayer2().supportsUndo(game)) {
+            // Only a finished game has a winning path to clear
+            if(game.isGameOver()) winFlagReset(game);
+
+            // Stop an AI that's thinking before the board changes, so the
+            // move it was working on can't land after the undo
+            if(!game.isGameOver() && game.getCurrentPlayer().getType().equals(Player.AI)) game.getCurrentPlayer().endMove();
+
+            // Remove the piece from the board and the movelist
+            game.removeLastMove();
+
+            if(gameLocation == LOCAL_GAME) {
+                if(game.isGameOver()) game.incrementCurrentPlayer();
+
+                if(game.getCurrentPlayer().getType().equals(Player.Human)) {
+                    game.getWaitingPlayer().undoCalled();
+
+                    if(game.getWaitingPlayer().getType().equals(Player.AI)) {
+                        if(game.getMoveNumber() > 1) {
+                            game.removeLastMove();
+                        }
+                        else {
+                            game.getCurrentPlayer().endMove();
+                        }
+                    }
+                    else {
+                        game.getCurrentPlayer().endMove();
+                    }
+                }
+                else {
+                    if(!game.isGameOver()) {
+                        game.getCurrentPlayer().undoCalled();
+                    }
+                }
+                if(game.isGameOver() && game.getWaitingPlayer().getType().equals(Player.Human)) game.incrementCurrentPlayer();
+            }
+
+            // Reset the game if it's already ended
+            if(game.isGameOver()) {
+                game.start();
+            }
+        }
+
+        if(game.getGameListener() != null) game.getGameListener().onUndo();
+    }
+
+    public static PlayingEntity getPlayer(int i, Game game) {
+        if(i == 1) {
+            return game.getPlayer1();
+        }
+        else if(i == 2) {
+            return game.getPlayer2();
+        }
+        else {
+            return null;
+        }
+    }
+}
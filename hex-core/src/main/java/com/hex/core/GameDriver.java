@@ -0,0 +1,143 @@
+package com.hex.core;
+
+/**
+ * Plays a game on the caller's thread. There's no game thread, timer or
+ * listener. Useful for servers, tests and simulating games in bulk.
+ * 
+ * A game can be driven two ways. With the (gridSize, swap) or (options)
+ * constructors both sides are PlayerObjects, so the game can be saved and
+ * loaded like any other, and each call to play() places the current
+ * player's stone. With the (options, player1, player2) constructor the
+ * players are given, usually AIs, and each call to playTurn() asks the
+ * current one for its move. Either way the driver checks for a winner and
+ * hands the turn over before returning.
+ **/
+public class GameDriver {
+    private final Game game;
+
+    /**
+     * Creates a game with no timer
+     * 
+     * @param gridSize
+     *            the width and height of the board
+     * @param swap
+     *            whether the second player may take the first stone
+     */
+    public GameDriver(int gridSize, boolean swap) {
+        this(createOptions(gridSize, swap));
+    }
+
+    public GameDriver(Game.GameOptions gameOptions) {
+        this(gameOptions, new PlayerObject(1), new PlayerObject(2));
+        // Names are required by Game.load()
+        game.getPlayer1().setName("Player 1");
+        game.getPlayer2().setName("Player 2");
+    }
+
+    /**
+     * Creates a game between two players, usually AIs, whose moves are asked
+     * for by playTurn()
+     */
+    public GameDriver(Game.GameOptions gameOptions, PlayingEntity player1, PlayingEntity player2) {
+        this(new Game(gameOptions, player1, player2));
+        game.setGameStart(System.currentTimeMillis());
+        game.setMoveStart(game.getGameStart());
+    }
+
+    private GameDriver(Game game) {
+        this.game = game;
+    }
+
+    private static Game.GameOptions createOptions(int gridSize, boolean swap) {
+        Game.GameOptions gameOptions = new Game.GameOptions();
+        gameOptions.gridSize = gridSize;
+        gameOptions.swap = swap;
+        gameOptions.timer = new Timer(0, 0, Timer.NO_TIMER);
+        return gameOptions;
+    }
+
+    /**
+     * Restores a game written by save() or Game.save() and places its stones
+     */
+    public static GameDriver load(String state) {
+        Game game = Game.load(state);
+        game.applyMoves(game.getMoveList());
+        game.setMoveStart(System.currentTimeMillis());
+        return new GameDriver(game);
+    }
+
+    /**
+     * Places a stone for the current player
+     * 
+     * @return false if the move was illegal or the game is already over
+     */
+    public boolean play(int x, int y) {
+        return play(new Point(x, y));
+    }
+
+    /**
+     * Places a stone for the current player
+     * 
+     * @return false if the move was illegal or the game is already over
+     */
+    public boolean play(Point hex) {
+        if(game.isGameOver()) return false;
+        if(hex.x < 0 || hex.y < 0 || hex.x >= game.gameOptions.gridSize || hex.y >= game.gameOptions.gridSize) return false;
+        if(!GameAction.makeMove(game.getCurrentPlayer(), hex, game)) return false;
+
+        endTurn();
+        return true;
+    }
+
+    /**
+     * Asks the current player for its move, on the caller's thread
+     * 
+     * @return false if the player didn't move or the game is already over
+     */
+    public boolean playTurn() {
+        if(game.isGameOver()) return false;
+        int moveNumber = game.getMoveNumber();
+        game.getCurrentPlayer().getPlayerTurn(game);
+        if(game.getMoveNumber() == moveNumber) return false;
+
+        endTurn();
+        return true;
+    }
+
+    private void endTurn() {
+        if(!game.checkForWinner()) {
+            game.incrementCurrentPlayer();
+            game.setMoveStart(System.currentTimeMillis());
+        }
+    }
+
+    public boolean isGameOver() {
+        return game.isGameOver();
+    }
+
+    /**
+     * @return the team that won (1 or 2), or 0 if the game is still going
+     */
+    public byte getWinner() {
+        PlayingEntity winner = game.getWinner();
+        return winner == null ? 0 : winner.getTeam();
+    }
+
+    /**
+     * @return the team whose turn it is
+     */
+    public byte getCurrentTeam() {
+        return game.getCurrentPlayer().getTeam();
+    }
+
+    public String save() {
+        return game.save();
+    }
+
+    /**
+     * The underlying game, for read access to the board and move list
+     */
+    public Game getGame() {
+        return game;
+    }
+}
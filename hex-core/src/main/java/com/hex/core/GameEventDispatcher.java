@@ -0,0 +1,182 @@
+package com.hex.core;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A GameListener that batches events instead of handling each one on the
+ * game thread. Events are recorded as they arrive and the first one asks
+ * the Scheduler to run flush(). Anything that fires before then (a burst of
+ * turns during a replay, a timer tick) joins the same batch. So a UI that
+ * schedules on its next frame gets at most one callback per frame.
+ *
+ * Subscribers pick the events they care about and are called once per
+ * flush with the ones that fired. The latest winner, turn and time are kept
+ * on the dispatcher.
+ **/
+public class GameEventDispatcher implements Game.GameListener {
+    public static enum Event {
+        WIN, CLEAR, START, STOP, TURN, REPLAY_START, REPLAY_END, UNDO, START_TIMER, DISPLAY_TIME
+    }
+
+    /**
+     * Runs the flush, usually on the UI thread's next frame
+     * */
+    public static interface Scheduler {
+        public void schedule(Runnable flush);
+    }
+
+    public static interface Subscriber {
+        /**
+         * Called from flush() with the subscribed events that fired since the
+         * last flush
+         * */
+        public void onEvents(EnumSet<Event> events);
+    }
+
+    private static class Subscription {
+        final EnumSet<Event> events;
+        final Subscriber subscriber;
+
+        Subscription(EnumSet<Event> events, Subscriber subscriber) {
+            this.events = events;
+            this.subscriber = subscriber;
+        }
+    }
+
+    private final Scheduler scheduler;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+    private final EnumSet<Event> pending = EnumSet.noneOf(Event.class);
+    private boolean flushScheduled;
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private volatile PlayingEntity winner;
+    private volatile PlayingEntity turn;
+    private volatile int minutes;
+    private volatile int seconds;
+
+    public GameEventDispatcher(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void subscribe(EnumSet<Event> events, Subscriber subscriber) {
+        subscriptions.add(new Subscription(EnumSet.copyOf(events), subscriber));
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        for(Subscription subscription : subscriptions) {
+            if(subscription.subscriber == subscriber) subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * Delivers every event recorded since the last flush
+     * */
+    public void flush() {
+        EnumSet<Event> events;
+        synchronized(this) {
+            events = EnumSet.copyOf(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if(events.isEmpty()) return;
+
+        for(Subscription subscription : subscriptions) {
+            EnumSet<Event> fired = EnumSet.copyOf(subscription.events);
+            fired.retainAll(events);
+            if(!fired.isEmpty()) subscription.subscriber.onEvents(fired);
+        }
+    }
+
+    private void post(Event event) {
+        boolean schedule;
+        synchronized(this) {
+            pending.add(event);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if(schedule) scheduler.schedule(flush);
+    }
+
+    /**
+     * The player from the last WIN event
+     * */
+    public PlayingEntity getWinner() {
+        return winner;
+    }
+
+    /**
+     * The player from the last TURN event. May be null during replays.
+     * */
+    public PlayingEntity getTurn() {
+        return turn;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    @Override
+    public void onWin(PlayingEntity player) {
+        winner = player;
+        post(Event.WIN);
+    }
+
+    @Override
+    public void onClear() {
+        post(Event.CLEAR);
+    }
+
+    @Override
+    public void onStart() {
+        post(Event.START);
+    }
+
+    @Override
+    public void onStop() {
+        post(Event.STOP);
+    }
+
+    @Override
+    public void onTurn(PlayingEntity player) {
+        turn = player;
+        post(Event.TURN);
+    }
+
+    @Override
+    public void onReplayStart() {
+        post(Event.REPLAY_START);
+    }
+
+    @Override
+    public void onReplayEnd() {
+        post(Event.REPLAY_END);
+    }
+
+    @Override
+    public void onUndo() {
+        post(Event.UNDO);
+    }
+
+    @Override
+    public void startTimer() {
+        post(Event.START_TIMER);
+    }
+
+    @Override
+    public void displayTime(int minutes, int seconds) {
+        this.minutes = minutes;
+        this.seconds = seconds;
+        post(Event.DISPLAY_TIME);
+    }
+}
@@ -0,0 +1,47 @@
+package com.hex.core;
+
+import java.io.Serializable;
+
+public class GamePiece implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private byte teamNumber = 0; // 1 is left-right, 2 is top-down
+    private transient boolean winningPath;
+    private final transient int x;
+    private final transient int y;
+
+    public GamePiece() {
+        this(-1, -1);
+    }
+
+    GamePiece(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public void setTeam(byte t, Game game) {
+        byte previous = teamNumber;
+        teamNumber = t;
+        if(game != null && previous != t) game.pieceChanged(x, y, previous, t);
+    }
+
+    public byte getTeam() {
+        return teamNumber;
+    }
+
+    // used for checking victory condition
+    public static void markWinningPath(byte team, Game game) {
+        int gridSize = game.gameOptions.gridSize;
+        for(int cell : game.getConnectivity().getWinningPath(team)) {
+            game.gamePieces[cell / gridSize][cell % gridSize].setWinningPath(true);
+        }
+    }
+
+    public boolean isWinningPath() {
+        return winningPath;
+    }
+
+    public void setWinningPath(boolean winningPath) {
+        this.winningPath = winningPath;
+    }
+
+}
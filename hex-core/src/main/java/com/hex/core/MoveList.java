@@ -0,0 +1,113 @@
+package com.hex.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * @author sam
+ * 
+ */
+public class MoveList implements Serializable, Iterable<Move> {
+
+    private static final long serialVersionUID = 1L;
+
+    // Kept in an array so the last move, or any past one, is O(1) to reach.
+    // Saves see it as a plain JSON array, as before.
+    private ArrayList<Move> moveList;
+
+    /**
+     * Makes a new move list
+     */
+    public MoveList() {
+        this.moveList = new ArrayList<Move>();
+    }
+
+    /**
+     * @return returns the last move
+     */
+    public Move getMove() {
+        return moveList.isEmpty() ? null : moveList.get(moveList.size() - 1);
+    }
+
+    /**
+     * @param num
+     *            the amount of moves to go back
+     * @return returns the move made num moves ago
+     */
+    public Move getPastMove(int num) {
+        if(num < this.size()) {
+            return moveList.get(this.size() - (num - 1));
+        }
+        return null;
+    }
+
+    /**
+     * makes a new move and adds it to the list
+     * 
+     * @param x
+     * @param y
+     * @param teamNumber
+     * @param time
+     *            this is the time the move was made
+     * @param moveNumber
+     *            this is the move number stating at one for the first move.
+     */
+    public void makeMove(int x, int y, byte teamNumber, long time, int moveNumber) {
+        moveList.add(new Move(x, y, teamNumber, time, moveNumber));
+    }
+
+    /**
+     * @param move
+     *            add a pre-made move to the list
+     */
+    public void makeMove(Move move) {
+        moveList.add(move);
+    }
+
+    /**
+     * @return the size of the list
+     */
+    public int size() {
+        return moveList.size();
+    }
+
+    // for replays
+    /**
+     * @param time
+     *            the time to pause between moves
+     * @param game
+     *            a copy of the running game
+     */
+    public void replay(int time, Game game) {
+        for(int i = 0; i < moveList.size(); i++) {
+            Move m = moveList.get(i);
+            game.gamePieces[m.getX()][m.getY()].setTeam(m.getTeam(), game);
+            if(game.getGameListener() != null) game.getGameListener().onTurn(null);
+            if(i < moveList.size() - 1) {
+                try {
+                    if(game.replayRunning) Thread.sleep(time);
+                }
+                catch(InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * @return iterates from the first move to the last
+     */
+    @Override
+    public Iterator<Move> iterator() {
+        return moveList.iterator();
+    }
+
+    /**
+     * removes the last item from the list
+     */
+    public void removeMove() {
+        moveList.remove(moveList.size() - 1);
+    }
+}
@@ -0,0 +1,186 @@
+package com.hex.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed moves for the first few positions of a game, one book per board
+ * size.
+ *
+ * A book file is a 16 byte header (magic, version, grid size, entry count)
+ * followed by entries sorted by key. Each entry is a long position key and
+ * the int cell to play, x * gridSize + y. Keys are the position's Zobrist
+ * hash mixed with the side to move and whether swapping is allowed, so they
+ * mean the same thing in every game.
+ *
+ * Lookups binary search the file in place. Opened from a file, it's memory
+ * mapped and only the pages a lookup touches are ever read.
+ *
+ * AIs find books through register() and get(). See AI.playBookMove().
+ **/
+public class OpeningBook {
+    private static final int MAGIC = 0x4858424B;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 12;
+    // Mixed into keys so the same stones make different positions
+    private static final long TEAM_2_TO_MOVE = 0x3C6EF372FE94F82BL;
+    private static final long SWAP_ALLOWED = 0xA54FF53A5F1D36F1L;
+    private static final Map<Integer, OpeningBook> BOOKS = new HashMap<Integer, OpeningBook>();
+
+    private final ByteBuffer buffer;
+    private final int gridSize;
+    private final int count;
+
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IOException("Not an opening book");
+        if(buffer.getInt(4) != VERSION) throw new IOException("Unsupported opening book version " + buffer.getInt(4));
+        gridSize = buffer.getInt(8);
+        count = buffer.getInt(12);
+        if(buffer.capacity() < HEADER_BYTES + (long) count * ENTRY_BYTES) throw new IOException("Opening book is truncated");
+    }
+
+    /**
+     * Maps a book file into memory
+     * */
+    public static OpeningBook open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            return open(in.getChannel(), 0, in.length());
+        }
+        finally {
+            // The mapping outlives the file
+            in.close();
+        }
+    }
+
+    /**
+     * Maps part of a file into memory, such as an uncompressed Android asset
+     * */
+    public static OpeningBook open(FileChannel channel, long offset, long length) throws IOException {
+        return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * Reads a whole book into memory, for streams that can't be mapped
+     * */
+    public static OpeningBook read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while((read = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, read);
+        }
+        return new OpeningBook(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Writes a book
+     *
+     * @param entries
+     *            Position keys, as from key(), and the cell to play in each
+     * */
+    public static void write(OutputStream out, int gridSize, Map<Long, Integer> entries) throws IOException {
+        long[] keys = new long[entries.size()];
+        int i = 0;
+        for(long key : entries.keySet()) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(gridSize);
+        data.writeInt(keys.length);
+        for(long key : keys) {
+            data.writeLong(key);
+            data.writeInt(entries.get(key));
+        }
+        data.flush();
+    }
+
+    /**
+     * Makes book available to AIs playing on its board size, replacing any
+     * other
+     * */
+    public static synchronized void register(OpeningBook book) {
+        BOOKS.put(book.getGridSize(), book);
+    }
+
+    public static synchronized void unregister(int gridSize) {
+        BOOKS.remove(gridSize);
+    }
+
+    /**
+     * Returns the registered book for a board size, or null
+     * */
+    public static synchronized OpeningBook get(int gridSize) {
+        return BOOKS.get(gridSize);
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Returns the number of positions in the book
+     * */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the book key for the game's position with team to move. Swap
+     * counts on moves 1 and 2: the first stone is picked knowing it can be
+     * taken, and the reply may take it.
+     * */
+    public static long key(Game game, byte team) {
+        long key = game.getPositionHash();
+        if(team == 2) key ^= TEAM_2_TO_MOVE;
+        if(game.gameOptions.swap && game.getMoveNumber() <= 2) key ^= SWAP_ALLOWED;
+        return key;
+    }
+
+    /**
+     * Returns the cell stored for key, or -1
+     * */
+    public int lookup(long key) {
+        int low = 0;
+        int high = count - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if(midKey < key) low = mid + 1;
+            else if(midKey > key) high = mid - 1;
+            else return buffer.getInt(HEADER_BYTES + mid * ENTRY_BYTES + 8);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the book move for team in the game's position, or null if the
+     * book doesn't cover it
+     * */
+    public Point getMove(Game game, byte team) {
+        if(game.gameOptions.gridSize != gridSize) return null;
+        int cell = lookup(key(game, team));
+        if(cell < 0 || cell >= gridSize * gridSize) return null;
+
+        // Only an empty cell, or the first stone when swapping
+        byte occupant = game.getBoard().getTeam(cell);
+        if(occupant != 0 && !(game.gameOptions.swap && game.getMoveNumber() == 2 && occupant == 1)) return null;
+        return new Point(cell / gridSize, cell % gridSize);
+    }
+}
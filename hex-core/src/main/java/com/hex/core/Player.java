@@ -0,0 +1,5 @@
+package com.hex.core;
+
+public enum Player {
+    Human, AI, Net;
+}
@@ -0,0 +1,27 @@
+package com.hex.core;
+
+import java.io.Serializable;
+
+public final class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public int x;
+    public int y;
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if(object instanceof Point) {
+            return x == ((Point) object).x && y == ((Point) object).y;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return x + "," + y;
+    }
+}
@@ -0,0 +1,62 @@
+package com.hex.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Random keys for Zobrist hashing. A position's hash is the XOR of one key
+ * per stone, so placing or removing a stone is a single XOR.
+ * 
+ * Keys are generated from a fixed seed so the same position hashes to the
+ * same value in every run. That keeps hashes usable in saved games and
+ * precomputed tables.
+ **/
+public class Zobrist {
+    private static final long SEED = 0x4865784865784865L;
+    private static final Map<Integer, long[]> KEYS = new HashMap<Integer, long[]>();
+
+    private Zobrist() {}
+
+    /**
+     * Returns the keys for a board size. Team 1's key for cell i is at
+     * [2 * i], team 2's is at [2 * i + 1]. Do not modify the array.
+     * */
+    public static synchronized long[] getKeys(int gridSize) {
+        long[] keys = KEYS.get(gridSize);
+        if(keys == null) {
+            keys = new long[gridSize * gridSize * 2];
+            long state = SEED + gridSize;
+            for(int i = 0; i < keys.length; i++) {
+                // SplitMix64
+                state += 0x9E3779B97F4A7C15L;
+                long z = state;
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                keys[i] = z ^ (z >>> 31);
+            }
+            KEYS.put(gridSize, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the key for a stone, or 0 for an empty cell
+     * */
+    public static long getKey(long[] keys, int index, byte team) {
+        if(team == 0) return 0;
+        return keys[2 * index + team - 1];
+    }
+
+    /**
+     * Hashes a board from scratch
+     * */
+    public static long hash(BitBoard board) {
+        long[] keys = getKeys(board.getGridSize());
+        long hash = 0;
+        int cells = board.getGridSize() * board.getGridSize();
+        for(int i = 0; i < cells; i++) {
+            hash ^= getKey(keys, i, board.getTeam(i));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,51 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.hex.core.BitBoard;
+import com.hex.core.Game;
+import com.hex.core.Timer;
+
+public class BitBoardTest {
+    @Test
+    public void testTracksGamePieces() {
+        Game.GameOptions gameOptions = new Game.GameOptions();
+        gameOptions.gridSize = 9;
+        gameOptions.swap = false;
+        gameOptions.timer = new Timer(0, 0, Timer.NO_TIMER);
+        Game game = new Game(gameOptions, new TestPlayer(1), new TestPlayer(2));
+        BitBoard board = game.getBoard();
+
+        assertEquals(81, board.getEmptyCount());
+
+        // Cell 64 lands in the second word of each plane
+        game.gamePieces[7][1].setTeam((byte) 1, game);
+        game.gamePieces[0][0].setTeam((byte) 2, game);
+        assertEquals(1, board.getTeam(7, 1));
+        assertEquals(2, board.getTeam(0, 0));
+        assertEquals(false, board.isEmpty(7, 1));
+        assertEquals(79, board.getEmptyCount());
+        assertEquals(1, board.getStoneCount((byte) 1));
+
+        game.gamePieces[7][1].setTeam((byte) 0, game);
+        assertEquals(0, board.getTeam(7, 1));
+        assertEquals(80, board.getEmptyCount());
+        assertEquals(0, board.getStoneCount((byte) 1));
+    }
+
+    @Test
+    public void testFull() {
+        BitBoard board = new BitBoard(3);
+        for(int i = 0; i < 9; i++) {
+            board.setTeam(i, (byte) (i % 2 + 1));
+        }
+        assertEquals(true, board.isFull());
+        assertEquals(5, board.getStoneCount((byte) 1));
+
+        board.clear();
+        assertEquals(9, board.getEmptyCount());
+        assertEquals(0, board.getPlane((byte) 0)[0] >>> 9);
+    }
+}
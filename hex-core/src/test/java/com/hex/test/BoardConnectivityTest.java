@@ -0,0 +1,110 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.hex.core.Game;
+import com.hex.core.GameAction;
+import com.hex.core.Timer;
+
+public class BoardConnectivityTest {
+    private Game createGame(int gridSize) {
+        Game.GameOptions gameOptions = new Game.GameOptions();
+        gameOptions.gridSize = gridSize;
+        gameOptions.swap = true;
+        gameOptions.timer = new Timer(0, 0, Timer.NO_TIMER);
+        return new Game(gameOptions, new TestPlayer(1), new TestPlayer(2));
+    }
+
+    @Test
+    public void testTeam1ConnectsLeftToRight() {
+        Game game = createGame(5);
+        for(int x = 0; x < 4; x++) {
+            game.gamePieces[x][2].setTeam((byte) 1, game);
+        }
+        assertEquals("An incomplete chain must not win", false, GameAction.checkWinPlayer(1, game));
+
+        // Join through the diagonal neighbour instead of a straight line
+        game.gamePieces[4][1].setTeam((byte) 1, game);
+        assertEquals("Player 1 must win once both edges are joined", true, GameAction.checkWinPlayer(1, game));
+        assertEquals("Player 2 has no stones", false, GameAction.checkWinPlayer(2, game));
+        assertEquals("The winning path must be marked", true, game.gamePieces[4][1].isWinningPath());
+    }
+
+    @Test
+    public void testTeam2ConnectsTopToBottom() {
+        Game game = createGame(4);
+        for(int y = 0; y < 4; y++) {
+            game.gamePieces[1][y].setTeam((byte) 2, game);
+        }
+        assertEquals("Player 2 must win once both edges are joined", true, GameAction.checkWinPlayer(2, game));
+        assertEquals("A column must not win for player 1", false, GameAction.checkWinPlayer(1, game));
+    }
+
+    @Test
+    public void testRemovingAStoneBreaksTheChain() {
+        Game game = createGame(4);
+        for(int x = 0; x < 4; x++) {
+            game.gamePieces[x][0].setTeam((byte) 1, game);
+        }
+        assertEquals(true, game.getConnectivity().isConnected((byte) 1));
+
+        game.gamePieces[2][0].setTeam((byte) 0, game);
+        assertEquals("Undo must break the connection", false, game.getConnectivity().isConnected((byte) 1));
+
+        game.gamePieces[2][0].setTeam((byte) 2, game);
+        assertEquals("A swapped stone must not count for its old team", false, game.getConnectivity().isConnected((byte) 1));
+
+        game.gamePieces[2][0].setTeam((byte) 1, game);
+        assertEquals(true, game.getConnectivity().isConnected((byte) 1));
+    }
+
+    @Test
+    public void testTakingBackStonesInOrder() {
+        Game game = createGame(5);
+        Random random = new Random(5);
+        int[] cells = new int[25];
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for(int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = temp;
+        }
+
+        // Whether each team was connected after each stone
+        boolean[][] connected = new boolean[cells.length][2];
+        for(int i = 0; i < cells.length; i++) {
+            game.gamePieces[cells[i] / 5][cells[i] % 5].setTeam((byte) (i % 2 + 1), game);
+            connected[i][0] = game.getConnectivity().isConnected((byte) 1);
+            connected[i][1] = game.getConnectivity().isConnected((byte) 2);
+        }
+        for(int i = cells.length - 1; i > 0; i--) {
+            game.gamePieces[cells[i] / 5][cells[i] % 5].setTeam((byte) 0, game);
+            assertEquals(connected[i - 1][0], game.getConnectivity().isConnected((byte) 1));
+            assertEquals(connected[i - 1][1], game.getConnectivity().isConnected((byte) 2));
+        }
+    }
+
+    @Test
+    public void testWinningPathIsShortest() {
+        Game game = createGame(4);
+        // A detour along the bottom and a shortcut through the middle
+        int[][] stones = { { 0, 3 }, { 1, 3 }, { 2, 3 }, { 3, 3 }, { 0, 2 }, { 1, 1 }, { 2, 1 }, { 3, 1 }, { 1, 2 } };
+        for(int[] stone : stones) {
+            game.gamePieces[stone[0]][stone[1]].setTeam((byte) 1, game);
+        }
+        game.gamePieces[3][0].setTeam((byte) 1, game);
+
+        int[] path = game.getConnectivity().getWinningPath((byte) 1);
+        assertEquals("The path must cross the board in one stone per column", 4, path.length);
+        assertEquals("The path must start on the x == 0 edge", 0, path[0] / 4);
+        assertEquals("The path must end on the far edge", 3, path[path.length - 1] / 4);
+        assertEquals(0, game.getConnectivity().getWinningPath((byte) 2).length);
+    }
+}
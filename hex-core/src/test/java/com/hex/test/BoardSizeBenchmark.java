@@ -0,0 +1,151 @@
+package com.hex.test;
+
+import java.util.Random;
+
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+
+/**
+ * Plays random games on boards from 11x11 to 101x101 and prints the average
+ * cost of a move. The "flood fill" column repeats each game with the old
+ * per-move win check (reset every flag, then search from every edge cell)
+ * for comparison. The "undo" column takes each game back a move at a time
+ * and times Game.undo() and the win check after it.
+ * 
+ * Run with: ./gradlew :hex-core:benchmark
+ **/
+public class BoardSizeBenchmark {
+    private static final int[] SIZES = { 11, 19, 31, 51, 71, 101 };
+    private static final int GAMES = 20;
+
+    public static void main(String[] args) {
+        // Warm up the JIT so the first row isn't skewed
+        run(11, 200, false);
+        run(11, 20, true);
+
+        runUndo(11, 200);
+
+        System.out.println(String.format("%6s %12s %16s %16s %16s", "size", "moves/game", "engine us/move", "flood fill us/move", "undo us/move"));
+        for(int size : SIZES) {
+            long[] engine = run(size, GAMES, false);
+            long[] floodFill = run(size, Math.max(1, GAMES * 11 / size), true);
+            long[] undo = runUndo(size, GAMES);
+            System.out.println(String.format("%6d %12d %16.3f %16.3f %16.3f", size, engine[1] / GAMES, engine[0] / 1000.0 / engine[1], floodFill[0] / 1000.0
+                    / floodFill[1], undo[0] / 1000.0 / undo[1]));
+        }
+    }
+
+    /**
+     * @return total nanoseconds and total moves
+     */
+    private static long[] run(int size, int games, boolean floodFill) {
+        Random random = new Random(size);
+        long time = 0;
+        long moves = 0;
+        int[] cells = new int[size * size];
+
+        for(int g = 0; g < games; g++) {
+            shuffle(cells, random);
+
+            GameDriver driver = new GameDriver(size, false);
+            Game game = driver.getGame();
+            long start = System.nanoTime();
+            for(int i = 0; i < cells.length && !driver.isGameOver(); i++) {
+                driver.play(cells[i] / size, cells[i] % size);
+                if(floodFill) floodFillWinCheck(game, size);
+                moves++;
+            }
+            time += System.nanoTime() - start;
+        }
+        return new long[] { time, moves };
+    }
+
+    /**
+     * Plays each game up to the move before it's won, then undoes it all,
+     * checking for a winner after each undo as the next move would
+     * 
+     * @return total nanoseconds spent undoing and total moves undone
+     */
+    private static long[] runUndo(int size, int games) {
+        Random random = new Random(size);
+        long time = 0;
+        long moves = 0;
+        int[] cells = new int[size * size];
+
+        for(int g = 0; g < games; g++) {
+            shuffle(cells, random);
+
+            // Find where the game ends, so the undone game never has to restart
+            GameDriver ended = new GameDriver(size, false);
+            int length = 0;
+            while(!ended.isGameOver()) {
+                ended.play(cells[length] / size, cells[length] % size);
+                length++;
+            }
+
+            GameDriver driver = new GameDriver(size, false);
+            for(int i = 0; i < length - 1; i++) {
+                driver.play(cells[i] / size, cells[i] % size);
+            }
+            Game game = driver.getGame();
+            long start = System.nanoTime();
+            while(game.getMoveNumber() > 1) {
+                game.undo(game.getMoveNumber() - 1);
+                game.getConnectivity().isConnected((byte) 1);
+                game.getConnectivity().isConnected((byte) 2);
+                moves++;
+            }
+            time += System.nanoTime() - start;
+        }
+        return new long[] { time, moves };
+    }
+
+    private static void shuffle(int[] cells, Random random) {
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for(int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = temp;
+        }
+    }
+
+    /**
+     * The win check the engine used before BoardConnectivity: clear a flag
+     * on every cell, then flood fill from every cell next to the far edges,
+     * looking for the near ones
+     * */
+    private static boolean floodFillWinCheck(Game game, int size) {
+        boolean[][] checked = new boolean[size][size];
+        for(int i = 0; i < size; i++) {
+            if(checkWinTeam((byte) 1, size, i, game, checked)) return true;
+        }
+        for(int i = 0; i < size; i++) {
+            if(checkWinTeam((byte) 2, i, size, game, checked)) return true;
+        }
+        return false;
+    }
+
+    private static boolean checkPiece(byte team, int x, int y, Game game, boolean[][] checked) {
+        if(team == game.gamePieces[x][y].getTeam() && !checked[x][y]) {
+            checked[x][y] = true;
+            if(team == 1 && x == 0 || team == 2 && y == 0 || checkWinTeam(team, x, y, game, checked)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean checkWinTeam(byte team, int x, int y, Game game, boolean[][] checked) {
+        int size = checked.length;
+        if(y < size && x - 1 >= 0 && checkPiece(team, x - 1, y, game, checked)) return true;
+        if(y < size && x + 1 < size && checkPiece(team, x + 1, y, game, checked)) return true;
+        if(x < size && y - 1 >= 0 && checkPiece(team, x, y - 1, game, checked)) return true;
+        if(x < size && y + 1 < size && checkPiece(team, x, y + 1, game, checked)) return true;
+        if(y + 1 < size && x - 1 >= 0 && checkPiece(team, x - 1, y + 1, game, checked)) return true;
+        if(x + 1 < size && y - 1 >= 0 && checkPiece(team, x + 1, y - 1, game, checked)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.hex.core.BoardTopology;
+
+public class BoardTopologyTest {
+    @Test
+    public void testNeighbours() {
+        BoardTopology topology = BoardTopology.get(5);
+        assertSame(topology, BoardTopology.get(5));
+
+        int[] start = topology.getNeighbourStart();
+        // Corners on the short diagonal have two neighbours, the others three
+        assertEquals(2, start[1] - start[0]);
+        assertEquals(3, start[topology.index(0, 4) + 1] - start[topology.index(0, 4)]);
+        assertEquals(4, start[topology.index(0, 2) + 1] - start[topology.index(0, 2)]);
+        assertEquals(6, start[topology.index(2, 2) + 1] - start[topology.index(2, 2)]);
+
+        assertEquals(topology.index(3, 2), topology.getNeighbour(topology.index(2, 2), 0));
+        assertEquals(topology.index(1, 3), topology.getNeighbour(topology.index(2, 2), 2));
+        assertEquals(-1, topology.getNeighbour(topology.index(0, 2), 3));
+    }
+
+    @Test
+    public void testBridges() {
+        BoardTopology topology = BoardTopology.get(5);
+        int cell = topology.index(2, 2);
+        int[] start = topology.getBridgeStart();
+        assertEquals(6, start[cell + 1] - start[cell]);
+
+        // The bridge to (3, 3) is held by (3, 2) and (2, 3)
+        int b = start[cell];
+        assertEquals(topology.index(3, 3), topology.getBridges()[b]);
+        assertEquals(topology.index(3, 2), topology.getBridgeCarriers()[2 * b]);
+        assertEquals(topology.index(2, 3), topology.getBridgeCarriers()[2 * b + 1]);
+
+        // Bridges off the board are left out
+        cell = topology.index(0, 0);
+        assertEquals(1, start[cell + 1] - start[cell]);
+    }
+
+    @Test
+    public void testEdges() {
+        BoardTopology topology = BoardTopology.get(5);
+        assertEquals(true, topology.isOnEdge(topology.index(0, 3), BoardTopology.TEAM1_START));
+        assertEquals(true, topology.isOnEdge(topology.index(4, 3), BoardTopology.TEAM1_END));
+        assertEquals(true, topology.isOnEdge(topology.index(3, 0), BoardTopology.TEAM2_START));
+        assertEquals(false, topology.isOnEdge(topology.index(3, 0), BoardTopology.TEAM2_END));
+        assertEquals((1 << BoardTopology.TEAM1_START) | (1 << BoardTopology.TEAM2_END), topology.getEdges(topology.index(0, 4)));
+        assertEquals(5, topology.getEdgeCells(BoardTopology.TEAM2_END).length);
+        assertEquals(1L << topology.index(4, 4), topology.getEdgePlane(BoardTopology.TEAM1_END)[0] & (1L << topology.index(4, 4)));
+    }
+}
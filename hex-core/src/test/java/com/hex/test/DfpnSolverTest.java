@@ -0,0 +1,107 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+
+import com.hex.core.AI;
+import com.hex.core.BitBoard;
+import com.hex.core.DfpnSolver;
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+
+public class DfpnSolverTest {
+    @Test
+    public void testSolvesSmallBoard() {
+        DfpnSolver solver = new DfpnSolver(3);
+        BitBoard board = new BitBoard(3);
+        assertEquals(DfpnSolver.Status.WIN, solver.solve(board, (byte) 1, 100000, 10000));
+
+        // Whatever the opponent does after the winning move, it's still won
+        int move = solver.getBestMove();
+        assertEquals(0, board.getTeam(move));
+        board.setTeam(move, (byte) 1);
+        assertEquals(DfpnSolver.Status.LOSS, solver.solve(board, (byte) 2, 100000, 10000));
+        assertEquals(-1, solver.getBestMove());
+
+        // The acute corners lose
+        BitBoard corner = new BitBoard(3);
+        corner.setTeam(0, 0, (byte) 1);
+        assertEquals(DfpnSolver.Status.WIN, solver.solve(corner, (byte) 2, 100000, 10000));
+    }
+
+    @Test
+    public void testGivesUpAtNodeLimit() {
+        DfpnSolver solver = new DfpnSolver(7, 1 << 16);
+        assertEquals(DfpnSolver.Status.UNKNOWN, solver.solve(new BitBoard(7), (byte) 1, 1000, 10000));
+        assertTrue(solver.getNodes() <= 1000);
+        assertEquals(-1, solver.getBestMove());
+    }
+
+    @Test
+    public void testAbortBeforeSolveIsKept() {
+        DfpnSolver solver = new DfpnSolver(3);
+        solver.abort();
+        assertEquals(DfpnSolver.Status.UNKNOWN, solver.solve(new BitBoard(3), (byte) 1, 100000, 10000));
+        assertTrue(solver.getNodes() <= 1);
+
+        solver.resetAbort();
+        assertEquals(DfpnSolver.Status.WIN, solver.solve(new BitBoard(3), (byte) 1, 100000, 10000));
+    }
+
+    @Test
+    public void testAIPlaysSolvedMove() {
+        GameDriver driver = new GameDriver(3, false);
+        driver.play(0, 0);
+        Game game = driver.getGame();
+
+        SolverAI ai = new SolverAI(2);
+        ai.getPlayerTurn(game);
+        assertTrue(ai.played);
+        assertEquals(DfpnSolver.Status.WIN, ai.getLastSolve());
+        assertEquals(2, game.getBoard().getTeam(1, 1));
+
+        // Too many empty cells to try
+        ai.setSolverThreshold(3);
+        ai.getPlayerTurn(game);
+        assertTrue(!ai.played);
+        assertEquals(null, ai.getLastSolve());
+    }
+
+    private static class SolverAI extends AI {
+        private static final long serialVersionUID = 1L;
+        boolean played;
+
+        SolverAI(int team) {
+            super(team);
+        }
+
+        @Override
+        public void getPlayerTurn(Game game) {
+            super.getPlayerTurn(game);
+            played = playSolvedMove(game);
+        }
+
+        @Override
+        public Serializable getSaveState() {
+            return null;
+        }
+
+        @Override
+        public void setSaveState(Serializable state) {}
+
+        @Override
+        public void win() {}
+
+        @Override
+        public void lose(Game game) {}
+
+        @Override
+        public String getAIType() {
+            return "Solver";
+        }
+    }
+}
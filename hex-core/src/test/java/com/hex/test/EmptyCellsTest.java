@@ -0,0 +1,74 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.hex.core.EmptyCells;
+import com.hex.core.GameDriver;
+
+public class EmptyCellsTest {
+    @Test
+    public void testAddAndRemove() {
+        EmptyCells empty = new EmptyCells(3);
+        assertEquals(9, empty.size());
+
+        empty.remove(4);
+        empty.remove(0);
+        empty.remove(4);
+        assertEquals(7, empty.size());
+        assertEquals(false, empty.contains(4));
+        assertEquals(true, empty.contains(8));
+
+        empty.add(4);
+        assertEquals(8, empty.size());
+        assertEquals(true, empty.contains(4));
+
+        Random random = new Random(0);
+        for(int i = 0; i < 100; i++) {
+            assertEquals("Only empty cells are picked", true, empty.random(random) != 0);
+        }
+    }
+
+    @Test
+    public void testFollowsGame() {
+        GameDriver driver = new GameDriver(4, true);
+        EmptyCells empty = driver.getGame().getEmptyCells();
+        driver.play(1, 2);
+        assertEquals(15, empty.size());
+        assertEquals(false, empty.contains(6));
+
+        // Swapping takes an occupied cell, so nothing becomes empty
+        driver.play(1, 2);
+        assertEquals(15, empty.size());
+
+        driver.getGame().gamePieces[1][2].setTeam((byte) 0, driver.getGame());
+        assertEquals(16, empty.size());
+        assertEquals(true, empty.contains(6));
+    }
+
+    @Test
+    public void testCopyFrom() {
+        EmptyCells empty = new EmptyCells(3);
+        empty.remove(2);
+        empty.remove(7);
+
+        EmptyCells copy = new EmptyCells(3);
+        copy.copyFrom(empty);
+        assertEquals(7, copy.size());
+        assertEquals(false, copy.contains(2));
+        assertEquals(false, copy.contains(7));
+
+        // The copy is independent
+        copy.remove(0);
+        assertEquals(true, empty.contains(0));
+
+        int[] cells = new int[9];
+        assertEquals(6, copy.toArray(cells));
+        for(int i = 0; i < 6; i++) {
+            assertEquals(true, copy.contains(cells[i]));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+
+import org.junit.Test;
+
+import com.hex.core.AI;
+import com.hex.core.Game;
+import com.hex.core.GameAction;
+import com.hex.core.GameDriver;
+import com.hex.core.Point;
+import com.hex.core.Timer;
+
+public class GameDriverTest {
+    @Test
+    public void testPlayToWin() {
+        GameDriver driver = new GameDriver(3, false);
+        assertEquals(1, driver.getCurrentTeam());
+
+        // Player 1 walks across row 0 while player 2 wastes moves on row 2
+        assertEquals(true, driver.play(0, 0));
+        assertEquals(2, driver.getCurrentTeam());
+        assertEquals("The cell is taken", false, driver.play(0, 0));
+        assertEquals(true, driver.play(0, 2));
+        assertEquals(true, driver.play(1, 0));
+        assertEquals(true, driver.play(1, 2));
+        assertEquals(0, driver.getWinner());
+        assertEquals(true, driver.play(2, 0));
+
+        assertEquals(true, driver.isGameOver());
+        assertEquals(1, driver.getWinner());
+        assertEquals("No moves after the game ends", false, driver.play(2, 2));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        GameDriver driver = new GameDriver(5, false);
+        driver.play(2, 2);
+        driver.play(1, 3);
+        driver.play(3, 1);
+
+        GameDriver loaded = GameDriver.load(driver.save());
+        assertEquals(2, loaded.getCurrentTeam());
+        assertEquals(1, loaded.getGame().getBoard().getTeam(3, 1));
+        assertEquals(2, loaded.getGame().getBoard().getTeam(1, 3));
+        assertEquals(4, loaded.getGame().getMoveNumber());
+        assertEquals(false, loaded.isGameOver());
+    }
+
+    @Test
+    public void testLoadFinishedGame() {
+        GameDriver driver = new GameDriver(2, false);
+        driver.play(0, 0);
+        driver.play(0, 1);
+        driver.play(1, 0);
+        assertEquals(1, driver.getWinner());
+
+        Game game = Game.load(driver.save());
+        assertEquals("Loading doesn't place stones", 0, game.getBoard().getTeam(0, 0));
+        game.applyMoves(game.getMoveList());
+        assertEquals(true, game.isGameOver());
+        assertEquals(1, game.getWinner().getTeam());
+        assertEquals(true, game.gamePieces[1][0].isWinningPath());
+        assertEquals(false, game.gamePieces[0][1].isWinningPath());
+    }
+
+    @Test
+    public void testLoadChecksPositionHash() {
+        GameDriver driver = new GameDriver(5, true);
+        driver.play(2, 2);
+        assertEquals("Swapped", true, driver.play(2, 2));
+        driver.play(1, 3);
+
+        Game game = Game.load(driver.save());
+        game.applyMoves(game.getMoveList());
+        assertEquals(driver.getGame().getPositionHash(), game.getPositionHash());
+
+        // A save whose hash doesn't match its moves is reported, but still
+        // loads
+        String tampered = driver.save().replace("\"positionHash\":" + driver.getGame().getPositionHash(), "\"positionHash\":1");
+        PrintStream err = System.err;
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(report));
+        try {
+            game = Game.load(tampered);
+        }
+        finally {
+            System.setErr(err);
+        }
+        assertTrue(report.toString().contains("position hash mismatch"));
+        game.applyMoves(game.getMoveList());
+        assertEquals(driver.getGame().getPositionHash(), game.getPositionHash());
+    }
+
+    @Test
+    public void testUndoChangesOnlyTheLastMove() {
+        GameDriver driver = new GameDriver(5, true);
+        driver.play(2, 2);
+        driver.play(2, 2);
+        Game game = driver.getGame();
+        long swapped = game.getPositionHash();
+        driver.play(1, 3);
+
+        game.undo(3);
+        assertEquals(0, game.getBoard().getTeam(1, 3));
+        assertEquals(2, game.getBoard().getTeam(2, 2));
+        assertEquals(swapped, game.getPositionHash());
+
+        game.undo(2);
+        assertEquals("Undoing the swap gives the stone back", 1, game.getBoard().getTeam(2, 2));
+        assertEquals(1, game.getMoveList().size());
+    }
+
+    @Test
+    public void testPlayTurnAsksPlayers() {
+        Game.GameOptions options = new Game.GameOptions();
+        options.gridSize = 3;
+        options.timer = new Timer(0, 0, Timer.NO_TIMER);
+        GameDriver driver = new GameDriver(options, new FirstEmptyAI(1), new FirstEmptyAI(2));
+
+        // Taking every other cell, team 1 joins (0, 2), (1, 1) and (2, 0) on
+        // the seventh move
+        int turns = 0;
+        while(driver.playTurn()) {
+            turns++;
+        }
+        assertEquals(7, turns);
+        assertEquals(true, driver.isGameOver());
+        assertEquals(1, driver.getWinner());
+    }
+
+    /**
+     * Plays the first empty cell
+     * */
+    private static class FirstEmptyAI extends AI {
+        private static final long serialVersionUID = 1L;
+
+        FirstEmptyAI(int team) {
+            super(team);
+        }
+
+        @Override
+        public void getPlayerTurn(Game game) {
+            super.getPlayerTurn(game);
+            int gridSize = game.gameOptions.gridSize;
+            for(int cell = 0; cell < gridSize * gridSize; cell++) {
+                if(game.getBoard().getTeam(cell) == 0) {
+                    GameAction.makeMove(this, new Point(cell / gridSize, cell % gridSize), game);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public Serializable getSaveState() {
+            return null;
+        }
+
+        @Override
+        public void setSaveState(Serializable state) {}
+
+        @Override
+        public void win() {}
+
+        @Override
+        public void lose(Game game) {}
+
+        @Override
+        public String getAIType() {
+            return "FirstEmpty";
+        }
+    }
+}
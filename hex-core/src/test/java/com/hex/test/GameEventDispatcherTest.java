@@ -0,0 +1,61 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.hex.core.GameEventDispatcher;
+import com.hex.core.GameEventDispatcher.Event;
+
+public class GameEventDispatcherTest {
+    @Test
+    public void testEventsAreCoalesced() {
+        final List<Runnable> scheduled = new ArrayList<Runnable>();
+        GameEventDispatcher dispatcher = new GameEventDispatcher(new GameEventDispatcher.Scheduler() {
+            @Override
+            public void schedule(Runnable flush) {
+                scheduled.add(flush);
+            }
+        });
+
+        final List<EnumSet<Event>> redraws = new ArrayList<EnumSet<Event>>();
+        dispatcher.subscribe(EnumSet.of(Event.TURN, Event.UNDO, Event.DISPLAY_TIME), new GameEventDispatcher.Subscriber() {
+            @Override
+            public void onEvents(EnumSet<Event> events) {
+                redraws.add(events);
+            }
+        });
+        final List<EnumSet<Event>> wins = new ArrayList<EnumSet<Event>>();
+        dispatcher.subscribe(EnumSet.of(Event.WIN), new GameEventDispatcher.Subscriber() {
+            @Override
+            public void onEvents(EnumSet<Event> events) {
+                wins.add(events);
+            }
+        });
+
+        TestPlayer player = new TestPlayer(1);
+        for(int i = 0; i < 50; i++) {
+            dispatcher.onTurn(player);
+        }
+        dispatcher.onUndo();
+        dispatcher.displayTime(1, 30);
+        assertEquals("A burst of events must schedule a single flush", 1, scheduled.size());
+
+        scheduled.get(0).run();
+        assertEquals(1, redraws.size());
+        assertEquals(EnumSet.of(Event.TURN, Event.UNDO, Event.DISPLAY_TIME), redraws.get(0));
+        assertEquals("Unsubscribed events must not be delivered", 0, wins.size());
+        assertEquals(player, dispatcher.getTurn());
+        assertEquals(30, dispatcher.getSeconds());
+
+        dispatcher.onWin(player);
+        assertEquals("A new event after a flush must schedule another", 2, scheduled.size());
+        scheduled.get(1).run();
+        assertEquals(1, wins.size());
+        assertEquals(1, redraws.size());
+    }
+}
@@ -0,0 +1,141 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.hex.core.AI;
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+import com.hex.core.OpeningBook;
+import com.hex.core.Point;
+
+public class OpeningBookTest {
+    private static OpeningBook read(int gridSize, Map<Long, Integer> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OpeningBook.write(out, gridSize, entries);
+        return OpeningBook.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        Map<Long, Integer> entries = new HashMap<Long, Integer>();
+        entries.put(5L, 1);
+        entries.put(-7L, 2);
+        entries.put(Long.MAX_VALUE, 3);
+        entries.put(Long.MIN_VALUE, 4);
+        OpeningBook book = read(7, entries);
+
+        assertEquals(7, book.getGridSize());
+        assertEquals(4, book.size());
+        for(Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            assertEquals((int) entry.getValue(), book.lookup(entry.getKey()));
+        }
+        assertEquals(-1, book.lookup(6));
+    }
+
+    @Test
+    public void testSwapIsPartOfThePosition() throws IOException {
+        GameDriver swap = new GameDriver(5, true);
+        swap.play(2, 2);
+        GameDriver noSwap = new GameDriver(5, false);
+        noSwap.play(2, 2);
+
+        Map<Long, Integer> entries = new HashMap<Long, Integer>();
+        entries.put(OpeningBook.key(swap.getGame(), (byte) 2), 2 * 5 + 2);
+        entries.put(OpeningBook.key(noSwap.getGame(), (byte) 2), 1 * 5 + 3);
+        File file = File.createTempFile("opening", ".book");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        OpeningBook.write(out, 5, entries);
+        out.close();
+        OpeningBook book = OpeningBook.open(file);
+
+        assertEquals(new Point(2, 2), book.getMove(swap.getGame(), (byte) 2));
+        assertEquals(new Point(1, 3), book.getMove(noSwap.getGame(), (byte) 2));
+        // Not team 1's turn
+        assertNull(book.getMove(swap.getGame(), (byte) 1));
+    }
+
+    @Test
+    public void testSwapIsPartOfTheFirstMove() throws IOException {
+        GameDriver swap = new GameDriver(5, true);
+        GameDriver noSwap = new GameDriver(5, false);
+
+        Map<Long, Integer> entries = new HashMap<Long, Integer>();
+        entries.put(OpeningBook.key(swap.getGame(), (byte) 1), 0 * 5 + 3);
+        entries.put(OpeningBook.key(noSwap.getGame(), (byte) 1), 2 * 5 + 2);
+        OpeningBook book = read(5, entries);
+
+        assertEquals(new Point(0, 3), book.getMove(swap.getGame(), (byte) 1));
+        assertEquals(new Point(2, 2), book.getMove(noSwap.getGame(), (byte) 1));
+    }
+
+    @Test
+    public void testAIPlaysBookMove() throws IOException {
+        GameDriver driver = new GameDriver(5, false);
+        driver.play(0, 4);
+        Game game = driver.getGame();
+        Map<Long, Integer> entries = new HashMap<Long, Integer>();
+        entries.put(OpeningBook.key(game, (byte) 2), 3 * 5 + 1);
+        OpeningBook.register(read(5, entries));
+        try {
+            BookAI ai = new BookAI(2);
+            ai.getPlayerTurn(game);
+            assertTrue(ai.played);
+            assertEquals(2, game.getBoard().getTeam(3, 1));
+
+            // No entry for this one
+            ai.getPlayerTurn(game);
+            assertTrue(!ai.played);
+        }
+        finally {
+            OpeningBook.unregister(5);
+        }
+    }
+
+    private static class BookAI extends AI {
+        private static final long serialVersionUID = 1L;
+        boolean played;
+
+        BookAI(int team) {
+            super(team);
+        }
+
+        @Override
+        public void getPlayerTurn(Game game) {
+            super.getPlayerTurn(game);
+            played = playBookMove(game);
+        }
+
+        @Override
+        public Serializable getSaveState() {
+            return null;
+        }
+
+        @Override
+        public void setSaveState(Serializable state) {}
+
+        @Override
+        public void win() {}
+
+        @Override
+        public void lose(Game game) {}
+
+        @Override
+        public String getAIType() {
+            return "Book";
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hex.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+import com.hex.core.Zobrist;
+
+public class ZobristTest {
+    @Test
+    public void testTranspositionsHashEqually() {
+        GameDriver a = new GameDriver(7, false);
+        a.play(1, 1);
+        a.play(2, 2);
+        a.play(3, 3);
+
+        GameDriver b = new GameDriver(7, false);
+        b.play(3, 3);
+        b.play(2, 2);
+        b.play(1, 1);
+
+        assertEquals(a.getGame().getPositionHash(), b.getGame().getPositionHash());
+        assertEquals(Zobrist.hash(a.getGame().getBoard()), a.getGame().getPositionHash());
+        assertTrue(a.getGame().getPositionHash() != 0);
+    }
+
+    @Test
+    public void testUndoRestoresHash() {
+        GameDriver driver = new GameDriver(7, true);
+        driver.play(3, 3);
+        Game game = driver.getGame();
+        long before = game.getPositionHash();
+
+        // Swap the first stone, then take the swap back
+        driver.play(3, 3);
+        assertTrue(before != game.getPositionHash());
+        game.gamePieces[3][3].setTeam((byte) 1, game);
+        assertEquals(before, game.getPositionHash());
+
+        game.gamePieces[3][3].setTeam((byte) 0, game);
+        assertEquals(0, game.getPositionHash());
+    }
+}
@@ -0,0 +1,216 @@
+package com.hex.tools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.hex.ai.MctsAI;
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+import com.hex.core.OpeningBook;
+import com.hex.core.Point;
+
+/**
+ * Builds opening books by self-play.
+ *
+ * For each team in turn, the book team's moves come from a long MctsAI search
+ * and the other team's are every legal move, out to a number of plies. So the
+ * book answers anything the opponent opens with, but only follows its own
+ * choices. It's built once with swapping and once without, since the first
+ * two moves depend on it. Swapping is one of MctsAI's options, so the book
+ * picks a first stone that's worth keeping and makes the swap decision too.
+ *
+ * Turning the board half way round swaps neither team's edges, so each
+ * result is stored for the turned position as well and never searched twice.
+ *
+ * Usage: BookGenerator [-out dir] [-playouts n] [-plies n] [-threads n]
+ * [-seed n] size...
+ *
+ * Writes dir/size.book for each size.
+ **/
+public class BookGenerator {
+    private final int gridSize;
+    private final int playouts;
+    private final int plies;
+    private final long seed;
+    private final ExecutorService executor;
+    private final Map<Long, Integer> entries = new HashMap<Long, Integer>();
+    private int searches;
+
+    public BookGenerator(int gridSize, int playouts, int plies, long seed, ExecutorService executor) {
+        this.gridSize = gridSize;
+        this.playouts = playouts;
+        this.plies = plies;
+        this.seed = seed;
+        this.executor = executor;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        File out = new File(".");
+        int playouts = 50000;
+        int plies = 3;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        List<Integer> sizes = new ArrayList<Integer>();
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("-out")) out = new File(args[++i]);
+            else if(args[i].equals("-playouts")) playouts = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-plies")) plies = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+            else sizes.add(Integer.parseInt(args[i]));
+        }
+        if(sizes.isEmpty()) {
+            System.err.println("Usage: BookGenerator [-out dir] [-playouts n] [-plies n] [-threads n] [-seed n] size...");
+            System.exit(1);
+        }
+
+        out.mkdirs();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for(int size : sizes) {
+                long start = System.currentTimeMillis();
+                BookGenerator generator = new BookGenerator(size, playouts, plies, seed, executor);
+                generator.generate();
+
+                File file = new File(out, size + ".book");
+                OutputStream stream = new FileOutputStream(file);
+                try {
+                    generator.write(stream);
+                }
+                finally {
+                    stream.close();
+                }
+                System.out.println(file + ": " + generator.getEntries().size() + " positions, " + generator.searches + " searches, "
+                        + (System.currentTimeMillis() - start) / 1000 + "s");
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the book so far, by position key
+     * */
+    public Map<Long, Integer> getEntries() {
+        return entries;
+    }
+
+    public void generate() throws InterruptedException, ExecutionException {
+        for(int pass = 0; pass < 2; pass++) {
+            boolean swap = pass == 1;
+            generate((byte) 1, swap);
+            generate((byte) 2, swap);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        OpeningBook.write(out, gridSize, entries);
+    }
+
+    /**
+     * Grows the book for team, one ply at a time. Every line in frontier has
+     * the same length.
+     * */
+    private void generate(byte team, boolean swap) throws InterruptedException, ExecutionException {
+        List<List<Point>> frontier = new ArrayList<List<Point>>();
+        frontier.add(new ArrayList<Point>());
+        for(int ply = 1; ply <= plies && !frontier.isEmpty(); ply++) {
+            byte mover = (byte) (ply % 2 == 1 ? 1 : 2);
+            List<List<Point>> next = new ArrayList<List<Point>>();
+            if(mover == team) {
+                // Search each position not already in the book, or turned
+                // round from one that is, in parallel
+                Map<Long, Future<Integer>> pending = new LinkedHashMap<Long, Future<Integer>>();
+                Map<Long, List<Point>> pendingLines = new HashMap<Long, List<Point>>();
+                for(List<Point> line : frontier) {
+                    final Game game = replay(line, swap);
+                    long key = OpeningBook.key(game, team);
+                    long turnedKey = OpeningBook.key(replay(turn(line), swap), team);
+                    if(entries.containsKey(key) || pending.containsKey(key) || pending.containsKey(turnedKey)) continue;
+                    final MctsAI ai = new MctsAI(team, gridSize, Long.MAX_VALUE / 2, playouts, seed);
+                    ai.setUseBook(false);
+                    pending.put(key, executor.submit(new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            return ai.getBestMove(game);
+                        }
+                    }));
+                    pendingLines.put(key, line);
+                    searches++;
+                }
+                for(Map.Entry<Long, Future<Integer>> result : pending.entrySet()) {
+                    add(pendingLines.get(result.getKey()), result.getValue().get(), swap, team);
+                }
+                for(List<Point> line : frontier) {
+                    Integer cell = entries.get(OpeningBook.key(replay(line, swap), team));
+                    if(cell != null) next.add(extend(line, cell));
+                }
+            }
+            else {
+                for(List<Point> line : frontier) {
+                    Game game = replay(line, swap);
+                    for(int cell = 0; cell < gridSize * gridSize; cell++) {
+                        byte occupant = game.getBoard().getTeam(cell);
+                        if(occupant == 0 || swap && ply == 2 && occupant == 1) next.add(extend(line, cell));
+                    }
+                }
+            }
+            frontier = next;
+        }
+    }
+
+    /**
+     * Stores a searched move, and the same move on the board turned half way
+     * round
+     * */
+    private void add(List<Point> line, int cell, boolean swap, byte team) {
+        if(cell < 0) return;
+        entries.put(OpeningBook.key(replay(line, swap), team), cell);
+
+        Point move = turn(new Point(cell / gridSize, cell % gridSize));
+        long key = OpeningBook.key(replay(turn(line), swap), team);
+        if(!entries.containsKey(key)) entries.put(key, move.x * gridSize + move.y);
+    }
+
+    private List<Point> turn(List<Point> line) {
+        List<Point> turned = new ArrayList<Point>();
+        for(Point move : line) {
+            turned.add(turn(move));
+        }
+        return turned;
+    }
+
+    private Point turn(Point move) {
+        return new Point(gridSize - 1 - move.x, gridSize - 1 - move.y);
+    }
+
+    private List<Point> extend(List<Point> line, int cell) {
+        List<Point> longer = new ArrayList<Point>(line);
+        longer.add(new Point(cell / gridSize, cell % gridSize));
+        return longer;
+    }
+
+    /**
+     * Plays a line of moves out on a new game
+     * */
+    private Game replay(List<Point> line, boolean swap) {
+        GameDriver driver = new GameDriver(gridSize, swap);
+        for(Point move : line) {
+            driver.play(move);
+        }
+        return driver.getGame();
+    }
+}
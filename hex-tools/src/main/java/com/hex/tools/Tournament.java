@@ -0,0 +1,389 @@
+package com.hex.tools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.hex.ai.AiTypes;
+import com.hex.ai.BeeGameAI;
+import com.hex.ai.GameAI;
+import com.hex.core.AI;
+import com.hex.core.Game;
+import com.hex.core.GameDriver;
+import com.hex.core.Timer;
+
+/**
+ * Plays AIs against each other to measure their strength and speed.
+ *
+ * Games are played through a GameDriver on a fixed pool of threads, one game
+ * per thread, with no game thread or timer of their own. Each pairing plays
+ * an even number of games, taking turns to move first.
+ *
+ * Ratings are a Bradley-Terry fit by minorization-maximization, on the Elo
+ * scale with an average of 0. Every pairing that played counts an extra half
+ * a win each way, so a clean sweep still gets a finite rating. The intervals
+ * come from the fit's curvature, so they're only approximate for small
+ * numbers of games.
+ *
+ * Usage: Tournament [-size n] [-games n] [-gauntlet] [-swap] [-threads n]
+ * [-time ms] [-out dir] ai...
+ *
+ * Each ai is an AiTypes name with an optional difficulty and, for BeeAI, an
+ * optional evaluator, e.g. BeeAI:3 or BeeAI:3:resistance. By default every
+ * pair of AIs plays. With -gauntlet the first plays each of the others. With
+ * -time every AI gets the same time for each move, as on a per move timer,
+ * rather than searching to its difficulty's depth. Each game is written to
+ * dir as a .rhex file.
+ **/
+public class Tournament {
+    private static final double PRIOR = 0.5;
+    private static final double ELO_PER_UNIT = 400 / Math.log(10);
+    private static final double Z_95 = 1.96;
+    private static final int MAX_ITERATIONS = 10000;
+
+    // TimeBudget keeps a second back for the Timer's updates, which don't
+    // happen here
+    private static final long TIMER_MARGIN = 1000;
+
+    private final int gridSize;
+    private final boolean swap;
+    private final long moveTime;
+    private final List<Entrant> entrants;
+    private final ExecutorService executor;
+    // wins[i][j] is how many games entrant i won against entrant j
+    private final int[][] wins;
+
+    /**
+     * One AI configuration and its totals so far
+     * */
+    public static class Entrant {
+        public final String spec;
+        public final AiTypes type;
+        public final int difficulty;
+        // BeeAI's evaluator, or null for its default
+        public final BeeGameAI.Evaluator evaluator;
+        private long moves;
+        private long thinkMillis;
+        private long nodes;
+
+        /**
+         * @param spec
+         *            An AiTypes name with an optional difficulty and
+         *            evaluator, e.g. BeeAI:3 or BeeAI:3:resistance
+         * */
+        public Entrant(String spec) {
+            this.spec = spec;
+            String[] parts = spec.split(":");
+            this.type = AiTypes.valueOf(parts[0]);
+            this.difficulty = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            this.evaluator = parts.length > 2 ? BeeGameAI.Evaluator.valueOf(parts[2].toUpperCase(Locale.US)) : null;
+            if(evaluator != null && type != AiTypes.BeeAI) throw new IllegalArgumentException("Only BeeAI has evaluators: " + spec);
+        }
+
+        AI create(int team, int gridSize) {
+            AI ai = AiTypes.newAI(type, team, gridSize, difficulty);
+            ai.setName(spec);
+            if(evaluator != null) ((BeeGameAI) ai).setEvaluator(evaluator);
+            // No one's watching, so don't count GameAI's pause as thinking
+            if(ai instanceof GameAI) ((GameAI) ai).setPause(false);
+            return ai;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public double getMillisPerMove() {
+            return moves == 0 ? 0 : (double) thinkMillis / moves;
+        }
+
+        public double getNodesPerSecond() {
+            return thinkMillis == 0 ? 0 : nodes * 1000.0 / thinkMillis;
+        }
+    }
+
+    /**
+     * What happened in one game
+     * */
+    private static class Result {
+        final int first;
+        final int second;
+        // The winning team, 1 or 2
+        byte winner;
+        final long[] moves = new long[2];
+        final long[] thinkMillis = new long[2];
+        final long[] nodes = new long[2];
+        String state;
+
+        Result(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    public Tournament(int gridSize, boolean swap, List<Entrant> entrants, ExecutorService executor) {
+        this(gridSize, swap, 0, entrants, executor);
+    }
+
+    /**
+     * @param moveTime
+     *            Milliseconds each AI gets for every move, or 0 to let them
+     *            search to their difficulty's depth
+     * */
+    public Tournament(int gridSize, boolean swap, long moveTime, List<Entrant> entrants, ExecutorService executor) {
+        this.gridSize = gridSize;
+        this.swap = swap;
+        this.moveTime = moveTime;
+        this.entrants = entrants;
+        this.executor = executor;
+        this.wins = new int[entrants.size()][entrants.size()];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int gridSize = 9;
+        int games = 10;
+        boolean gauntlet = false;
+        boolean swap = false;
+        long moveTime = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File out = null;
+        List<Entrant> entrants = new ArrayList<Entrant>();
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("-size")) gridSize = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-games")) games = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-gauntlet")) gauntlet = true;
+            else if(args[i].equals("-swap")) swap = true;
+            else if(args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-time")) moveTime = Long.parseLong(args[++i]);
+            else if(args[i].equals("-out")) out = new File(args[++i]);
+            else entrants.add(new Entrant(args[i]));
+        }
+        if(entrants.size() < 2) {
+            System.err.println("Usage: Tournament [-size n] [-games n] [-gauntlet] [-swap] [-threads n] [-time ms] [-out dir] ai...");
+            System.exit(1);
+        }
+
+        if(out != null) out.mkdirs();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Tournament tournament = new Tournament(gridSize, swap, moveTime, entrants, executor);
+            tournament.play(gauntlet, games, out, System.out);
+            tournament.report(System.out);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Plays every pairing games times, in parallel, and adds up the results
+     *
+     * @param out
+     *            Where to write the games, or null
+     * @param log
+     *            Gets a line per game, or null
+     * */
+    public void play(boolean gauntlet, int games, File out, PrintStream log) throws IOException, InterruptedException, ExecutionException {
+        List<Future<Result>> pending = new ArrayList<Future<Result>>();
+        for(int a = 0; a < entrants.size(); a++) {
+            for(int b = a + 1; b < entrants.size(); b++) {
+                if(gauntlet && a != 0) continue;
+                for(int game = 0; game < games; game++) {
+                    final int first = game % 2 == 0 ? a : b;
+                    final int second = game % 2 == 0 ? b : a;
+                    pending.add(executor.submit(new Callable<Result>() {
+                        @Override
+                        public Result call() {
+                            return play(first, second);
+                        }
+                    }));
+                }
+            }
+        }
+
+        for(int i = 0; i < pending.size(); i++) {
+            Result result = pending.get(i).get();
+            add(result);
+            String name = String.format("%04d-%s-vs-%s", i + 1, fileName(entrants.get(result.first).spec), fileName(entrants.get(result.second).spec));
+            if(out != null) write(new File(out, name + ".rhex"), result.state);
+            if(log != null) {
+                int winner = result.winner == 1 ? result.first : result.second;
+                log.println(name + ": " + entrants.get(winner).spec + " wins");
+            }
+        }
+    }
+
+    /**
+     * Plays one game, first moving first
+     * */
+    private Result play(int first, int second) {
+        Game.GameOptions options = new Game.GameOptions();
+        options.gridSize = gridSize;
+        options.swap = swap;
+        if(moveTime > 0) {
+            // Nothing runs the timer, so it's never used up. It only sets
+            // each move's budget.
+            options.timer = new Timer(0, 0, Timer.PER_MOVE);
+            options.timer.totalTime = moveTime + TIMER_MARGIN;
+        }
+        else {
+            options.timer = new Timer(0, 0, Timer.NO_TIMER);
+        }
+        AI player1 = entrants.get(first).create(1, gridSize);
+        AI player2 = entrants.get(second).create(2, gridSize);
+        GameDriver driver = new GameDriver(options, player1, player2);
+
+        Result result = new Result(first, second);
+        try {
+            while(!driver.isGameOver()) {
+                int side = driver.getCurrentTeam() - 1;
+                AI ai = side == 0 ? player1 : player2;
+                long start = System.currentTimeMillis();
+                boolean moved = driver.playTurn();
+                result.thinkMillis[side] += System.currentTimeMillis() - start;
+                result.moves[side]++;
+                result.nodes[side] += ai.getLastNodes();
+                // An AI that won't move forfeits
+                if(!moved) {
+                    result.winner = (byte) (side == 0 ? 2 : 1);
+                    break;
+                }
+            }
+            if(driver.isGameOver()) result.winner = driver.getWinner();
+        }
+        finally {
+            player1.quit();
+            player2.quit();
+        }
+        result.state = driver.save();
+        return result;
+    }
+
+    private void add(Result result) {
+        int[] players = { result.first, result.second };
+        if(result.winner == 1) wins[result.first][result.second]++;
+        else wins[result.second][result.first]++;
+        for(int side = 0; side < 2; side++) {
+            Entrant entrant = entrants.get(players[side]);
+            entrant.moves += result.moves[side];
+            entrant.thinkMillis += result.thinkMillis[side];
+            entrant.nodes += result.nodes[side];
+        }
+    }
+
+    /**
+     * Returns each entrant's rating on the Elo scale, averaging 0
+     * */
+    public double[] getRatings() {
+        int size = entrants.size();
+        double[] gamma = new double[size];
+        for(int i = 0; i < size; i++) {
+            gamma[i] = 1;
+        }
+        for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double change = 0;
+            for(int i = 0; i < size; i++) {
+                double won = 0;
+                double expected = 0;
+                for(int j = 0; j < size; j++) {
+                    double games = games(i, j);
+                    if(i == j || games == 0) continue;
+                    won += wins[i][j] + PRIOR;
+                    expected += games / (gamma[i] + gamma[j]);
+                }
+                if(expected == 0) continue;
+                double updated = won / expected;
+                change = Math.max(change, Math.abs(Math.log(updated / gamma[i])));
+                gamma[i] = updated;
+            }
+            normalize(gamma);
+            if(change < 1e-9) break;
+        }
+
+        double[] ratings = new double[size];
+        for(int i = 0; i < size; i++) {
+            ratings[i] = ELO_PER_UNIT * Math.log(gamma[i]);
+        }
+        return ratings;
+    }
+
+    /**
+     * Returns the half width of each rating's 95% confidence interval
+     * */
+    public double[] getIntervals(double[] ratings) {
+        int size = entrants.size();
+        double[] intervals = new double[size];
+        for(int i = 0; i < size; i++) {
+            double information = 0;
+            for(int j = 0; j < size; j++) {
+                if(i == j) continue;
+                double p = 1 / (1 + Math.exp((ratings[j] - ratings[i]) / ELO_PER_UNIT));
+                information += games(i, j) * p * (1 - p);
+            }
+            intervals[i] = information == 0 ? Double.POSITIVE_INFINITY : Z_95 * ELO_PER_UNIT / Math.sqrt(information);
+        }
+        return intervals;
+    }
+
+    public void report(PrintStream out) {
+        double[] ratings = getRatings();
+        double[] intervals = getIntervals(ratings);
+        out.println(String.format("%-16s %6s %6s %7s %7s %9s %11s", "AI", "Games", "Wins", "Elo", "95%", "ms/move", "nodes/s"));
+        for(int i = 0; i < entrants.size(); i++) {
+            Entrant entrant = entrants.get(i);
+            int played = 0;
+            int won = 0;
+            for(int j = 0; j < entrants.size(); j++) {
+                played += wins[i][j] + wins[j][i];
+                won += wins[i][j];
+            }
+            out.println(String.format("%-16s %6d %6d %7.0f %7s %9.1f %11.0f", entrant.spec, played, won, ratings[i], "+-" + Math.round(intervals[i]),
+                    entrant.getMillisPerMove(), entrant.getNodesPerSecond()));
+        }
+    }
+
+    /**
+     * Games between i and j, with the prior's extra win each way
+     * */
+    private double games(int i, int j) {
+        int played = wins[i][j] + wins[j][i];
+        return played == 0 ? 0 : played + 2 * PRIOR;
+    }
+
+    // Scales so the ratings average 0
+    private static void normalize(double[] gamma) {
+        double sum = 0;
+        for(double g : gamma) {
+            sum += Math.log(g);
+        }
+        double scale = Math.exp(sum / gamma.length);
+        for(int i = 0; i < gamma.length; i++) {
+            gamma[i] /= scale;
+        }
+    }
+
+    private static String fileName(String spec) {
+        return spec.replace(':', '-');
+    }
+
+    private static void write(File file, String state) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(state);
+        }
+        finally {
+            writer.close();
+        }
+    }
+}